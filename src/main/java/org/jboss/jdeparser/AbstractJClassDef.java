@@ -80,11 +80,22 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
         return name;
     }
 
+    void checkModifiable() {
+        if (classFile != null) {
+            classFile.checkModifiable();
+        }
+    }
+
     <C extends ClassContent> C add(C item) {
         return add(content, item);
     }
 
     <C extends ClassContent> C add(ArrayList<ClassContent> content, C item) {
+        checkModifiable();
+        if (! content.isEmpty() && content.get(content.size() - 1) instanceof AbstractJMethodDef methodDef) {
+            // the previous method is most likely finished
+            methodDef.trim();
+        }
         content.add(item);
         return item;
     }
@@ -111,6 +122,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
 
     @Override
     public JClassDef _extends(final JType type) {
+        checkModifiable();
         _extends = type;
         return this;
     }
@@ -122,6 +134,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
 
     @Override
     public JClassDef _implements(final String... names) {
+        checkModifiable();
         if (_implements == null) {
             _implements = new ArrayList<>(names.length);
         }
@@ -133,6 +146,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
 
     @Override
     public JClassDef _implements(final JType... types) {
+        checkModifiable();
         if (_implements == null) {
             _implements = new ArrayList<>(types.length);
         }
@@ -142,6 +156,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
 
     @Override
     public JClassDef _implements(final Class<?>... classes) {
+        checkModifiable();
         if (_implements == null) {
             _implements = new ArrayList<>(classes.length);
         }
@@ -175,6 +190,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
 
     @Override
     public JTypeParamDef typeParam(final String name) {
+        checkModifiable();
         generic = null;
         return super.typeParam(name);
     }
@@ -186,7 +202,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
 
     @Override
     public JBlock init(final ArrayList<ClassContent> content) {
-        return add(content, new InitJBlock());
+        return add(content, new InitJBlock(classFile));
     }
 
     @Override
@@ -199,7 +215,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
         if (allAreSet(mods, JMod.INNER)) {
             throw new UnsupportedOperationException("Inner classes cannot have static init blocks");
         }
-        return add(content, new StaticInitJBlock());
+        return add(content, new StaticInitJBlock(classFile));
     }
 
     @Override
@@ -410,6 +426,7 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
     void writeClassHeader(final SourceFileWriter sourceFileWriter) throws IOException {
         JMod.write(sourceFileWriter, mods);
         sourceFileWriter.write(designation());
+        sourceFileWriter.getClassFile().declareName(name, enclosingClass == null && classFile != null);
         sourceFileWriter.writeClass(name);
         writeTypeParams(sourceFileWriter);
         final boolean ifExt = hasInterfaceStyleExtends();
@@ -432,6 +449,28 @@ abstract class AbstractJClassDef extends AbstractJGeneric implements JClassDef,
         }
     }
 
+    int estimateWeight() {
+        return estimateWeight(content);
+    }
+
+    static int estimateWeight(final Iterable<ClassContent> content) {
+        int weight = 1;
+        for (ClassContent item : content) {
+            if (item instanceof AbstractJClassDef classDef) {
+                weight += classDef.estimateWeight();
+            } else if (item instanceof AbstractJMethodDef methodDef) {
+                weight += methodDef.estimateWeight();
+            } else if (item instanceof BasicJBlock block) {
+                weight += block.estimateWeight();
+            } else if (item instanceof JClassDefSectionImpl section) {
+                weight += section.estimateWeight();
+            } else {
+                weight ++;
+            }
+        }
+        return weight;
+    }
+
     void writeContent(final SourceFileWriter sourceFileWriter) throws IOException {
         Iterator<ClassContent> iterator = content.iterator();
         if (iterator.hasNext()) {
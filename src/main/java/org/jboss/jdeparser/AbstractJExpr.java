@@ -231,16 +231,13 @@ abstract class AbstractJExpr implements JExpr, Writable {
     private CachingLinkedHashMap<String, JAssignableExpr> fieldCache;
 
     @Override
-    public JAssignableExpr field(final String name) {
+    public synchronized JAssignableExpr field(final String name) {
         CachingLinkedHashMap<String, JAssignableExpr> map = fieldCache;
         if (map == null) {
-            map = fieldCache = new CachingLinkedHashMap<>();
+            map = fieldCache = new CachingLinkedHashMap<>(JDeparser.Cache.FIELD_REFS.counters);
         }
-        JAssignableExpr expr = map.get(name);
-        if (expr == null) {
-            map.put(name, expr = new FieldRefJExpr(this, name));
-        }
-        return expr;
+        final JAssignableExpr expr = map.lookup(name);
+        return expr != null ? expr : map.store(name, new FieldRefJExpr(this, name));
     }
 
     @Override
@@ -56,7 +56,8 @@ abstract class AbstractJMethodDef extends AbstractJGeneric implements JMethodDef
             throw new UnsupportedOperationException("Method body on abstract method");
         }
         if (body == null) {
-            body = new BasicJBlock(null, JBlock.Braces.REQUIRED);
+            checkModifiable();
+            body = new BasicJBlock(null, JBlock.Braces.REQUIRED, clazz.getClassFile());
         }
         return body;
     }
@@ -66,6 +67,16 @@ abstract class AbstractJMethodDef extends AbstractJGeneric implements JMethodDef
         return null;
     }
 
+    void checkModifiable() {
+        clazz.checkModifiable();
+    }
+
+    @Override
+    public JTypeParamDef typeParam(final String name) {
+        checkModifiable();
+        return super.typeParam(name);
+    }
+
     private ImplJParamDeclaration add(ImplJParamDeclaration item) {
         if (params == null) {
             params = new ArrayList<>();
@@ -76,6 +87,7 @@ abstract class AbstractJMethodDef extends AbstractJGeneric implements JMethodDef
 
     @Override
     public JParamDeclaration param(final int mods, final JType type, final String name) {
+        checkModifiable();
         if (JMod.anyAreSet(this.mods, JMod.VARARGS)) {
             throw new IllegalStateException("Vararg parameter already added");
         }
@@ -109,6 +121,7 @@ abstract class AbstractJMethodDef extends AbstractJGeneric implements JMethodDef
 
     @Override
     public JParamDeclaration varargParam(final int mods, final JType type, final String name) {
+        checkModifiable();
         if (JMod.anyAreSet(this.mods, JMod.VARARGS)) {
             throw new IllegalStateException("Vararg parameter already added");
         }
@@ -153,6 +166,7 @@ abstract class AbstractJMethodDef extends AbstractJGeneric implements JMethodDef
 
     @Override
     public JComment _throws(final JType type) {
+        checkModifiable();
         if (_throws == null) {
             _throws = new ArrayList<>();
         }
@@ -230,4 +244,16 @@ abstract class AbstractJMethodDef extends AbstractJGeneric implements JMethodDef
     AbstractJClassDef clazz() {
         return clazz;
     }
+
+    void trim() {
+        final BasicJBlock body = this.body;
+        if (body != null) {
+            body.trim();
+        }
+    }
+
+    int estimateWeight() {
+        final BasicJBlock body = this.body;
+        return body == null ? 1 : 1 + body.estimateWeight();
+    }
 }
@@ -30,8 +30,6 @@ import javax.lang.model.element.Modifier;
 abstract class AbstractJType implements JType {
 
     private ArrayJType array;
-    private WildcardJType wildcardExtends;
-    private WildcardJType wildcardSuper;
 
     static AbstractJType of(JType type) {
         if (type instanceof AbstractJType ajt) {
@@ -158,18 +156,12 @@ abstract class AbstractJType implements JType {
 
     @Override
     public JType wildcardExtends() {
-        if (wildcardExtends == null) {
-            wildcardExtends = new WildcardJType(this, true);
-        }
-        return wildcardExtends;
+        return WildcardJType.of(this, true);
     }
 
     @Override
     public JType wildcardSuper() {
-        if (wildcardSuper == null) {
-            wildcardSuper = new WildcardJType(this, false);
-        }
-        return wildcardSuper;
+        return WildcardJType.of(this, false);
     }
 
     @Override
@@ -185,16 +177,13 @@ abstract class AbstractJType implements JType {
     private CachingLinkedHashMap<String, JAssignableExpr> staticRefs;
 
     @Override
-    public JAssignableExpr field(final String name) {
+    public synchronized JAssignableExpr field(final String name) {
         CachingLinkedHashMap<String, JAssignableExpr> map = staticRefs;
         if (map == null) {
-            map = staticRefs = new CachingLinkedHashMap<>();
-        }
-        JAssignableExpr expr = map.get(name);
-        if (expr == null) {
-            map.put(name, expr = new StaticRefJExpr(this, name));
+            map = staticRefs = new CachingLinkedHashMap<>(JDeparser.Cache.STATIC_FIELD_REFS.counters);
         }
-        return expr;
+        final JAssignableExpr expr = map.lookup(name);
+        return expr != null ? expr : map.store(name, new StaticRefJExpr(this, name));
     }
 
     @Override
@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+/**
+ * A counting writer which appends directly to an {@link Appendable}.  The target is never flushed or closed.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+class AppendableCountingWriter extends CountingWriter {
+
+    private final Appendable out;
+
+    AppendableCountingWriter(final Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(final char[] chars, final int off, final int len) throws IOException {
+        final CharBuffer cb = CharBuffer.wrap(chars, off, len);
+        count(cb, 0, len);
+        out.append(cb);
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        final char ch = (char) c;
+        if (ch == '\n') {
+            line ++;
+        }
+        out.append(ch);
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        count(str, off, len);
+        out.append(str, off, off + len);
+    }
+
+    @Override
+    public void write(final String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(final StringBuilder b, final int off, final int len) throws IOException {
+        count(b, off, len);
+        out.append(b, off, off + len);
+    }
+
+    @Override
+    public void write(final StringBuilder b) throws IOException {
+        write(b, 0, b.length());
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
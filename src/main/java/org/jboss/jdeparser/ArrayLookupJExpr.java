@@ -32,13 +32,13 @@ class ArrayLookupJExpr extends AbstractJAssignableExpr {
 
     ArrayLookupJExpr(final AbstractJExpr expr, final AbstractJExpr idx) {
         super(Prec.ARRAY_ACCESS);
-        this.expr = expr.prec() > Prec.ARRAY_ACCESS ? new ParenJExpr(expr) : expr;
+        this.expr = expr;
         this.idx = idx;
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.write(expr);
+        writer.write(expr, Prec.ARRAY_ACCESS);
         writer.write($PUNCT.BRACKET.OPEN);
         writer.write(idx);
         writer.write($PUNCT.BRACKET.CLOSE);
@@ -23,6 +23,7 @@ import static org.jboss.jdeparser.Tokens.*;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
@@ -33,31 +34,102 @@ import javax.lang.model.element.Modifier;
  */
 class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
     private final BasicJBlock parent;
-    private final ArrayList<BlockContent> content = new ArrayList<>();
+    // the file this block belongs to, or null for a block outside of any file (such as a lambda body)
+    private final ImplJSourceFile classFile;
+    // allocated on first use; most blocks hold only a few statements
+    private ArrayList<BlockContent> content;
     private final Braces braces;
     private int tmpId = 1;
 
     BasicJBlock(final BasicJBlock parent, final Braces braces) {
+        this(parent, braces, parent == null ? null : parent.classFile);
+    }
+
+    BasicJBlock(final BasicJBlock parent, final Braces braces, final ImplJSourceFile classFile) {
         this.parent = parent;
         this.braces = braces;
+        this.classFile = classFile;
+    }
+
+    /**
+     * Check that the file containing this block may still be changed.
+     */
+    void checkModifiable() {
+        if (classFile != null) {
+            classFile.checkModifiable();
+        }
+    }
+
+    private void append(final BlockContent item) {
+        checkModifiable();
+        ArrayList<BlockContent> content = this.content;
+        if (content == null) {
+            content = this.content = new ArrayList<>(4);
+        } else if (content.get(content.size() - 1) instanceof BasicJBlock block) {
+            // moving on from a nested block usually means that it is finished
+            block.trim();
+        }
+        content.add(item);
     }
 
     private <T extends BlockContent> T add(T s) {
-        content.add(s);
+        append(s);
         return s;
     }
 
     private <T extends AbstractJExpr> ExpressionJStatement add(T item) {
         final ExpressionJStatement statement = new ExpressionJStatement(item);
-        content.add(statement);
+        append(statement);
         return statement;
     }
 
     private <T extends AbstractJCall> T add(T item) {
-        content.add(new ExpressionJStatement(item));
+        append(new ExpressionJStatement(item));
         return item;
     }
 
+    /**
+     * Add a shared stateless statement.  The returned handle swaps in a private copy if a comment is ever added.
+     *
+     * @param shared the shared statement
+     * @return the handle
+     */
+    private JStatement addShared(final BlockContent shared) {
+        append(shared);
+        return new SharedJStatement(this, content.size() - 1);
+    }
+
+    /**
+     * Replace the shared statement at the given index with a private copy.
+     *
+     * @param idx the index of the statement
+     * @return the copy
+     */
+    BasicJStatement unshare(final int idx) {
+        if (content.get(idx) instanceof KeywordJStatement shared) {
+            final KeywordJStatement copy = new KeywordJStatement(shared.getKeyword());
+            content.set(idx, copy);
+            return copy;
+        } else {
+            final EmptyJStatement copy = new EmptyJStatement();
+            content.set(idx, copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Release the excess capacity of this block and of its last nested block, if any.
+     */
+    void trim() {
+        final ArrayList<BlockContent> content = this.content;
+        if (content != null) {
+            content.trimToSize();
+            if (content.get(content.size() - 1) instanceof BasicJBlock block) {
+                block.trim();
+            }
+        }
+    }
+
     @Override
     public JBlock blankLine() {
         add(BlankLine.getInstance());
@@ -121,7 +193,7 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
 
     @Override
     public JStatement _continue() {
-        return add(new KeywordJStatement($KW.CONTINUE));
+        return addShared(KeywordJStatement.CONTINUE);
     }
 
     @Override
@@ -131,7 +203,7 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
 
     @Override
     public JStatement _break() {
-        return add(new KeywordJStatement($KW.BREAK));
+        return addShared(KeywordJStatement.BREAK);
     }
 
     @Override
@@ -161,7 +233,7 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
 
     @Override
     public JSwitch _switch(final JExpr expr) {
-        return add(new ImplJSwitch(parent, expr));
+        return add(new ImplJSwitch(this, expr));
     }
 
     @Override
@@ -171,7 +243,7 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
 
     @Override
     public JStatement _return() {
-        return add(new KeywordJStatement($KW.RETURN));
+        return addShared(KeywordJStatement.RETURN);
     }
 
     @Override
@@ -381,7 +453,7 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
 
     @Override
     public JStatement empty() {
-        return add(new EmptyJStatement());
+        return addShared(EmptyJStatement.INSTANCE);
     }
 
     @Override
@@ -453,7 +525,8 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
     }
 
     int size() {
-        return content.size();
+        final ArrayList<BlockContent> content = this.content;
+        return content == null ? 0 : content.size();
     }
 
     BlockContent get(int idx) {
@@ -465,6 +538,7 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
     }
 
     void write(final SourceFileWriter writer, final FormatPreferences.Space beforeBrace, Braces braces) throws IOException {
+        final List<BlockContent> content = this.content == null ? List.of() : this.content;
         if (braces == Braces.REQUIRED || braces == Braces.IF_MULTILINE && content.size() != 1) {
             writer.write(beforeBrace);
             writer.write($PUNCT.BRACE.OPEN);
@@ -508,6 +582,18 @@ class BasicJBlock extends BasicJCommentable implements JBlock, BlockContent {
         write(writer, FormatPreferences.Space.BEFORE_BRACE);
     }
 
+    int estimateWeight() {
+        final ArrayList<BlockContent> content = this.content;
+        if (content == null) {
+            return 1;
+        }
+        int weight = 1;
+        for (BlockContent item : content) {
+            weight += item instanceof BasicJBlock block ? block.estimateWeight() : 1;
+        }
+        return weight;
+    }
+
     boolean hasSingleItemOfType(Class<? extends BlockContent> type) {
         return size() == 1 && type.isInstance(get(0));
     }
@@ -38,8 +38,8 @@ class BinaryJExpr extends AbstractJExpr {
     BinaryJExpr(final $PUNCT.BINOP op, final AbstractJExpr e1, final AbstractJExpr e2, final int prec, final Assoc assoc) {
         super(prec);
         this.op = op;
-        this.e1 = e1.prec() > prec ? new ParenJExpr(e1) : e1;
-        this.e2 = e2.prec() > prec ? new ParenJExpr(e2) : e2;
+        this.e1 = e1;
+        this.e2 = e2;
         this.assoc = assoc;
     }
 
@@ -57,10 +57,10 @@ class BinaryJExpr extends AbstractJExpr {
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.write(e1);
+        writer.write(e1, prec());
         writer.write(op.getSpacingRule());
         writer.write(op);
         writer.write(op.getSpacingRule());
-        writer.write(e2);
+        writer.write(e2, prec());
     }
 }
@@ -0,0 +1,223 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A counting writer which encodes characters directly into a reusable byte buffer, without going through a
+ * {@code CharsetEncoder}.  Output is either UTF-8, or ASCII in which case all other characters are written as
+ * Unicode escapes.  Malformed surrogates are replaced with {@code ?} just as the JDK encoders would do.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+class ByteCountingWriter extends CountingWriter {
+
+    private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    private final byte[] buffer = new byte[8192];
+    private OutputStream out;
+    private final boolean ascii;
+    private int bsz;
+    private char highSurrogate;
+
+    ByteCountingWriter(final OutputStream out, final boolean ascii) {
+        this.out = out;
+        this.ascii = ascii;
+    }
+
+    /**
+     * Reset this writer to write to a new stream, reusing its buffer.
+     *
+     * @param out the new stream
+     */
+    void reset(final OutputStream out) {
+        this.out = out;
+        bsz = 0;
+        highSurrogate = 0;
+        line = 1;
+    }
+
+    boolean isAscii() {
+        return ascii;
+    }
+
+    @Override
+    public void write(final char[] chars, final int off, final int len) throws IOException {
+        for (int i = 0; i < len; i ++) {
+            write(chars[off + i]);
+        }
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        final char ch = (char) c;
+        if (ch == '\n') {
+            line ++;
+        }
+        if (bsz > buffer.length - 6) {
+            flushBuffer();
+        }
+        encode(ch);
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        encode(str, off, len);
+    }
+
+    @Override
+    public void write(final String str) throws IOException {
+        encode(str, 0, str.length());
+    }
+
+    @Override
+    public void write(final StringBuilder b, final int off, final int len) throws IOException {
+        encode(b, off, len);
+    }
+
+    @Override
+    public void write(final StringBuilder b) throws IOException {
+        encode(b, 0, b.length());
+    }
+
+    private void encode(final CharSequence cs, final int off, final int len) throws IOException {
+        int line = this.line, bsz = this.bsz;
+        final byte[] buffer = this.buffer;
+        final int limit = buffer.length - 6;
+        try {
+            char ch;
+            for (int i = 0; i < len; i ++) {
+                ch = cs.charAt(off + i);
+                if (bsz > limit) {
+                    this.bsz = bsz;
+                    flushBuffer();
+                    bsz = 0;
+                }
+                if (ch < 0x80 && highSurrogate == 0) {
+                    if (ch == '\n') {
+                        line ++;
+                    }
+                    buffer[bsz++] = (byte) ch;
+                } else {
+                    if (ch == '\n') {
+                        // following an unpaired high surrogate, which encode replaces before writing the newline
+                        line ++;
+                    }
+                    this.bsz = bsz;
+                    encode(ch);
+                    bsz = this.bsz;
+                }
+            }
+        } finally {
+            this.line = line;
+            this.bsz = bsz;
+        }
+    }
+
+    /**
+     * Encode one character into the buffer, which must have room for at least six bytes.
+     *
+     * @param ch the character to encode
+     */
+    private void encode(final char ch) {
+        final byte[] buffer = this.buffer;
+        int bsz = this.bsz;
+        if (ascii) {
+            if (ch < 0x80) {
+                buffer[bsz++] = (byte) ch;
+            } else {
+                buffer[bsz++] = '\\';
+                buffer[bsz++] = 'u';
+                buffer[bsz++] = HEX[ch >> 12];
+                buffer[bsz++] = HEX[ch >> 8 & 0xf];
+                buffer[bsz++] = HEX[ch >> 4 & 0xf];
+                buffer[bsz++] = HEX[ch & 0xf];
+            }
+            this.bsz = bsz;
+            return;
+        }
+        final char high = highSurrogate;
+        if (high != 0) {
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(ch)) {
+                final int cp = Character.toCodePoint(high, ch);
+                buffer[bsz++] = (byte) (0xf0 | cp >> 18);
+                buffer[bsz++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                buffer[bsz++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                buffer[bsz++] = (byte) (0x80 | cp & 0x3f);
+                this.bsz = bsz;
+                return;
+            }
+            // unpaired high surrogate
+            buffer[bsz++] = '?';
+        }
+        if (ch < 0x80) {
+            buffer[bsz++] = (byte) ch;
+        } else if (ch < 0x800) {
+            buffer[bsz++] = (byte) (0xc0 | ch >> 6);
+            buffer[bsz++] = (byte) (0x80 | ch & 0x3f);
+        } else if (Character.isHighSurrogate(ch)) {
+            // wait for the low surrogate
+            highSurrogate = ch;
+        } else if (Character.isLowSurrogate(ch)) {
+            buffer[bsz++] = '?';
+        } else {
+            buffer[bsz++] = (byte) (0xe0 | ch >> 12);
+            buffer[bsz++] = (byte) (0x80 | ch >> 6 & 0x3f);
+            buffer[bsz++] = (byte) (0x80 | ch & 0x3f);
+        }
+        this.bsz = bsz;
+    }
+
+    private void flushBuffer() throws IOException {
+        final int bsz = this.bsz;
+        if (bsz > 0) {
+            this.bsz = 0;
+            out.write(buffer, 0, bsz);
+        }
+    }
+
+    private void finish() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            if (bsz > buffer.length - 6) {
+                flushBuffer();
+            }
+            buffer[bsz++] = '?';
+        }
+        flushBuffer();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+}
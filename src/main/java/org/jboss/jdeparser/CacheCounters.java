@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The capacity setting and counters of one kind of cache.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class CacheCounters {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int capacity;
+
+    CacheCounters(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    void setCapacity(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    CacheStatistics getStatistics(final long size) {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size, capacity);
+    }
+
+    /**
+     * Get the statistics of a cache which is kept per instance, whose total size cannot be measured.
+     *
+     * @return the statistics, with a size of {@code -1}
+     */
+    CacheStatistics getStatistics() {
+        return getStatistics(-1);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+/**
+ * A snapshot of the statistics of one kind of cache.
+ *
+ * @see JDeparser#getCacheStatistics(JDeparser.Cache)
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class CacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+    private final int capacity;
+
+    CacheStatistics(final long hits, final long misses, final long evictions, final long size, final int capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the number of lookups which found a cached value.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups which did not find a cached value.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of values which were removed to stay within capacity, or which were reclaimed by the garbage
+     * collector.
+     *
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the number of values currently cached.  Caches which are kept per type or per expression are spread over
+     * instances which may be collected at any time, so their size cannot be measured and is reported as {@code -1}.
+     *
+     * @return the size, or {@code -1} if it is not known
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the configured capacity.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d evictions=%d size=%d capacity=%d", hits, misses, evictions, size, capacity);
+    }
+}
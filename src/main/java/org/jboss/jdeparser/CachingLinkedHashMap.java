@@ -27,8 +27,33 @@ import java.util.Map;
 @SuppressWarnings("serial")
 class CachingLinkedHashMap<K, V> extends LinkedHashMap<K, V> {
 
+    private final transient CacheCounters counters;
+
+    CachingLinkedHashMap(final CacheCounters counters) {
+        this.counters = counters;
+    }
+
+    V lookup(final K key) {
+        final V value = get(key);
+        if (value == null) {
+            counters.miss();
+        } else {
+            counters.hit();
+        }
+        return value;
+    }
+
+    V store(final K key, final V value) {
+        put(key, value);
+        return value;
+    }
+
     @Override
     protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
-        return size() > 12;
+        if (size() > counters.getCapacity()) {
+            counters.evicted();
+            return true;
+        }
+        return false;
     }
 }
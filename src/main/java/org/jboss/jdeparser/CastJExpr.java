@@ -32,7 +32,7 @@ class CastJExpr extends AbstractJExpr {
 
     CastJExpr(final AbstractJExpr expr, final JType type) {
         super(Prec.CAST);
-        this.expr = expr.prec() > Prec.CAST ? new ParenJExpr(expr) : expr;
+        this.expr = expr;
         this.type = type;
     }
 
@@ -52,6 +52,6 @@ class CastJExpr extends AbstractJExpr {
         writer.write(FormatPreferences.Space.WITHIN_PAREN_CAST);
         writer.write($PUNCT.PAREN.CLOSE);
         writer.write(FormatPreferences.Space.AFTER_CAST);
-        writer.write(expr);
+        writer.write(expr, Prec.CAST);
     }
 }
@@ -22,17 +22,28 @@ import java.io.IOException;
 
 final class CharJExpr extends AbstractJExpr {
 
-    private final int val;
+    private static final CharJExpr[] CACHE = new CharJExpr[1024];
 
-    CharJExpr(int val) {
+    private final String text;
+
+    private CharJExpr(int val) {
         super(0);
-        this.val = val;
+        text = "'" + (char) val + "'";
+    }
+
+    static CharJExpr of(final int val) {
+        if (val < 0 || val >= CACHE.length) {
+            return new CharJExpr(val);
+        }
+        CharJExpr expr = CACHE[val];
+        if (expr == null) {
+            CACHE[val] = expr = new CharJExpr(val);
+        }
+        return expr;
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.writeUnescaped('\'');
-        writer.writeUnescaped((char) val);
-        writer.writeUnescaped('\'');
+        writer.writeUnescaped(text);
     }
 }
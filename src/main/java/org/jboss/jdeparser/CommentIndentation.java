@@ -26,16 +26,28 @@ enum CommentIndentation implements Indent {
     BLOCK(" * ") {
         @Override
         public void escape(final Indent next, final StringBuilder b, final int idx) {
-            for (int i = idx > 0 ? idx : idx + 1; i < b.length();) {
-                if (b.charAt(i - 1) == '*' && b.charAt(i) == '/') {
-                    b.insert(idx, (char) 0x8205);
+            // the terminator may straddle the previously written character
+            int i = b.indexOf("*/", idx > 0 ? idx - 1 : 0);
+            if (i != -1) {
+                // move the remainder (starting at the '/') aside and stream it back with a joiner in each terminator
+                final String rest = b.substring(i + 1);
+                b.setLength(i + 1);
+                b.append(ZWJ);
+                int run = 0;
+                while ((i = rest.indexOf("*/", run)) != -1) {
+                    b.append(rest, run, i + 1).append(ZWJ);
+                    run = i + 1;
                 }
-                i++;
+                b.append(rest, run, rest.length());
             }
             next.escape(next, b, idx);
         }
     },
     ;
+
+    // zero width joiner, which keeps "*/" from terminating the comment without changing how it reads
+    private static final char ZWJ = '\u200D';
+
     private final String text;
 
     CommentIndentation(final String text) {
@@ -33,21 +33,21 @@ class CondJExpr extends AbstractJExpr {
 
     CondJExpr(final AbstractJExpr cond, final AbstractJExpr ifTrue, final AbstractJExpr ifFalse) {
         super(Prec.COND);
-        this.cond = cond.prec() > Prec.COND ? new ParenJExpr(cond) : cond;
-        this.ifTrue = ifTrue.prec() > Prec.COND ? new ParenJExpr(ifTrue) : ifTrue;
-        this.ifFalse = ifFalse.prec() > Prec.COND ? new ParenJExpr(ifFalse) : ifFalse;
+        this.cond = cond;
+        this.ifTrue = ifTrue;
+        this.ifFalse = ifFalse;
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.write(cond);
+        writer.write(cond, Prec.COND);
         writer.write(FormatPreferences.Space.BEFORE_TERNARY_Q);
         writer.write($PUNCT.Q);
         writer.write(FormatPreferences.Space.AFTER_TERNARY_Q);
-        writer.write(ifTrue);
+        writer.write(ifTrue, Prec.COND);
         writer.write(FormatPreferences.Space.BEFORE_TERNARY_COLON);
         writer.write($PUNCT.COLON);
         writer.write(FormatPreferences.Space.AFTER_TERNARY_COLON);
-        writer.write(ifFalse);
+        writer.write(ifFalse, Prec.COND);
     }
 }
@@ -36,10 +36,20 @@ class ConfigIndent implements Indent {
     @Override
     public void addIndent(final Indent next, final FormatPreferences preferences, final StringBuilder lineBuffer) {
         if (! preferences.isIndentAbsolute(indentation)) next.addIndent(next, preferences, lineBuffer);
-        final int indent = preferences.getIndent(indentation);
-        for (int i = 0; i < indent; i ++) {
-            lineBuffer.append(' ');
-        }
+        lineBuffer.append(" ".repeat(preferences.getIndent(indentation)));
+    }
+
+    /**
+     * Get the complete indentation prefix at this level, equivalent to what {@link #addIndent} would produce when
+     * every enclosing level is also a {@code ConfigIndent}.
+     *
+     * @param outerPrefix the prefix of the enclosing levels
+     * @param preferences the format preferences
+     * @return the prefix
+     */
+    String getPrefix(final String outerPrefix, final FormatPreferences preferences) {
+        final String own = " ".repeat(preferences.getIndent(indentation));
+        return preferences.isIndentAbsolute(indentation) ? own : outerPrefix.concat(own);
     }
 
     @Override
@@ -26,42 +26,35 @@ import java.io.Writer;
  */
 class CountingWriter extends Writer {
 
-    private final char[] buffer = new char[4096];
-    private final Writer out;
-    private int line = 1;
-    private int column = 1;
+    private final char[] buffer;
+    private Writer out;
+    int line = 1;
     private int bsz;
 
     CountingWriter(final Writer out) {
         this.out = out;
+        buffer = new char[4096];
+    }
+
+    /**
+     * Construct a new instance for a subclass which does its own buffering.
+     */
+    CountingWriter() {
+        out = null;
+        buffer = null;
     }
 
     @Override
     public void write(final char[] chars, final int off, final int len) throws IOException {
-        int line = this.line, column = this.column, bsz = this.bsz;
         final char[] buffer = this.buffer;
-        try {
-            char ch;
-            for (int i = 0; i < len; i ++) {
-                ch = chars[off + i];
-                if (ch == '\n') {
-                    line++;
-                    column = 1;
-                } else if (ch == '\r') {
-                    column = 1;
-                } else {
-                    column ++;
-                }
-                buffer[bsz++] = ch;
-                if (bsz == buffer.length) {
-                    out.write(buffer, 0, bsz);
-                    bsz = 0;
-                }
-            }
-        } finally {
-            this.line = line;
-            this.column = column;
-            this.bsz = bsz;
+        int pos = off;
+        final int end = off + len;
+        int n;
+        while (pos < end) {
+            n = Math.min(end - pos, buffer.length - bsz);
+            System.arraycopy(chars, pos, buffer, bsz, n);
+            copied(n);
+            pos += n;
         }
     }
 
@@ -69,9 +62,6 @@ class CountingWriter extends Writer {
     public void write(final int c) throws IOException {
         if (c == '\n') {
             line ++;
-            column = 1;
-        } else {
-            column ++;
         }
         buffer[bsz++] = (char) c;
         if (bsz == buffer.length) {
@@ -87,30 +77,15 @@ class CountingWriter extends Writer {
 
     @Override
     public void write(final String str, final int off, final int len) throws IOException {
-        int line = this.line, column = this.column, bsz = this.bsz;
         final char[] buffer = this.buffer;
-        try {
-            char ch;
-            for (int i = 0; i < len; i ++) {
-                ch = str.charAt(off + i);
-                if (ch == '\n') {
-                    line ++;
-                    column = 1;
-                } else if (ch == '\r') {
-                    column = 1;
-                } else {
-                    column ++;
-                }
-                buffer[bsz++] = ch;
-                if (bsz == buffer.length) {
-                    out.write(buffer, 0, bsz);
-                    bsz = 0;
-                }
-            }
-        } finally {
-            this.line = line;
-            this.column = column;
-            this.bsz = bsz;
+        int pos = off;
+        final int end = off + len;
+        int n;
+        while (pos < end) {
+            n = Math.min(end - pos, buffer.length - bsz);
+            str.getChars(pos, pos + n, buffer, bsz);
+            copied(n);
+            pos += n;
         }
     }
 
@@ -120,30 +95,15 @@ class CountingWriter extends Writer {
     }
 
     public void write(final StringBuilder b, final int off, final int len) throws IOException {
-        int line = this.line, column = this.column, bsz = this.bsz;
         final char[] buffer = this.buffer;
-        try {
-            char ch;
-            for (int i = 0; i < len; i ++) {
-                ch = b.charAt(off + i);
-                if (ch == '\n') {
-                    line ++;
-                    column = 1;
-                } else if (ch == '\r') {
-                    column = 1;
-                } else {
-                    column ++;
-                }
-                buffer[bsz++] = ch;
-                if (bsz == buffer.length) {
-                    out.write(buffer, 0, bsz);
-                    bsz = 0;
-                }
-            }
-        } finally {
-            this.line = line;
-            this.column = column;
-            this.bsz = bsz;
+        int pos = off;
+        final int end = off + len;
+        int n;
+        while (pos < end) {
+            n = Math.min(end - pos, buffer.length - bsz);
+            b.getChars(pos, pos + n, buffer, bsz);
+            copied(n);
+            pos += n;
         }
     }
 
@@ -151,6 +111,32 @@ class CountingWriter extends Writer {
         write(b, 0, b.length());
     }
 
+    /**
+     * Account for {@code n} characters which were just copied to the end of the buffer, counting lines and writing out
+     * a full buffer.
+     *
+     * @param n the number of characters copied
+     * @throws IOException if writing a full buffer failed
+     */
+    private void copied(final int n) throws IOException {
+        final char[] buffer = this.buffer;
+        int bsz = this.bsz;
+        final int end = bsz + n;
+        int line = this.line;
+        for (int i = bsz; i < end; i ++) {
+            if (buffer[i] == '\n') {
+                line ++;
+            }
+        }
+        this.line = line;
+        bsz = end;
+        if (bsz == buffer.length) {
+            out.write(buffer, 0, bsz);
+            bsz = 0;
+        }
+        this.bsz = bsz;
+    }
+
     @Override
     public void flush() throws IOException {
         int bsz = this.bsz;
@@ -167,11 +153,35 @@ class CountingWriter extends Writer {
         out.close();
     }
 
-    int getLine() {
-        return line;
+    /**
+     * Reset this writer to write to a new target, reusing its buffer.
+     *
+     * @param out the new target
+     */
+    void reset(final Writer out) {
+        this.out = out;
+        bsz = 0;
+        line = 1;
     }
 
-    int getColumn() {
-        return column;
+    /**
+     * Count the lines of the given characters, without writing them.
+     *
+     * @param cs the characters
+     * @param off the offset of the first character
+     * @param len the number of characters
+     */
+    void count(final CharSequence cs, final int off, final int len) {
+        int line = this.line;
+        for (int i = 0; i < len; i ++) {
+            if (cs.charAt(off + i) == '\n') {
+                line ++;
+            }
+        }
+        this.line = line;
+    }
+
+    int getLine() {
+        return line;
     }
 }
@@ -27,6 +27,9 @@ import java.io.IOException;
  */
 class EmptyJStatement extends BasicJStatement implements BlockContent {
 
+    // a shared instance, which never carries comments; see BasicJBlock#unshare
+    static final EmptyJStatement INSTANCE = new EmptyJStatement();
+
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
         writeComments(writer);
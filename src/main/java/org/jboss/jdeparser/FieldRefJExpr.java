@@ -32,13 +32,13 @@ class FieldRefJExpr extends AbstractJAssignableExpr {
 
     FieldRefJExpr(final AbstractJExpr expr, final String refName) {
         super(Prec.MEMBER_ACCESS);
-        this.expr = expr.prec() > prec() ? new ParenJExpr(expr) : expr;
+        this.expr = expr;
         this.refName = refName;
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.write(expr);
+        writer.write(expr, prec());
         writer.write($PUNCT.DOT);
         writer.writeEscapedWord(refName);
     }
@@ -703,6 +703,16 @@ public final class FormatPreferences {
         ENUM_EMPTY_PARENS,
         COMPACT_INIT_ONLY_CLASS,
         DROP_UNUSED_LABELS,
+        /**
+         * Compute the imports of each source file from the types it references.  Explicit imports which are never
+         * used are dropped, and simple name conflicts are resolved in favor of the most frequently referenced type.
+         */
+        AUTO_IMPORTS,
+        /**
+         * Always write fully qualified type names and never write imports.  Import requests are ignored, which avoids
+         * all import bookkeeping; this takes precedence over {@link #AUTO_IMPORTS}.
+         */
+        QUALIFIED_NAMES,
     }
 
 
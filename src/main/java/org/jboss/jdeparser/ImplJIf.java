@@ -38,6 +38,7 @@ class ImplJIf extends ConditionJBlock implements JIf {
         // e.g. if (cond) if (cond2) abc else xyz
         // ---> if (cond) { if (cond2) abc } else xyz
         // ---> if (cond) { if (cond2) abc else xyz }
+        checkModifiable();
         if (_else == null) {
             return _else = new ElseJBlock(this);
         }
@@ -22,21 +22,42 @@ import static org.jboss.jdeparser.Tokens.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 class ImplJSourceFile extends BasicJCommentable implements JSourceFile {
+    private static final Comparator<StaticRefJExpr> STATIC_IMPORT_ORDER = Comparator.comparing((StaticRefJExpr expr) -> expr.getType().qualifiedName()).thenComparing(StaticRefJExpr::getName);
+
     private final ImplJSources sources;
-    private final Map<String, AbstractJType> imports = new HashMap<>();
-    private final Map<String, StaticRefJExpr> staticImports = new HashMap<>();
-    private final ArrayList<ClassFileContent> content = new ArrayList<>();
+    // allocated on first use, and dropped again once the file is written or discarded
+    private HashMap<String, AbstractJType> imports;
+    private HashMap<String, StaticRefJExpr> staticImports;
+    private ArrayList<ClassFileContent> content;
+    /**
+     * The rendered name of each type referenced from this file; dropped whenever the imports change and after each write.
+     */
+    private IdentityHashMap<ReferenceJType, String> typeNames;
+    // the state of automatic import computation; the first four are only present while the imports are collected
+    private LinkedHashMap<ReferenceJType, int[]> referenced;
+    private HashSet<AbstractJType> usedImports;
+    private HashSet<StaticRefJExpr> usedStaticImports;
+    private HashMap<String, Boolean> declaredNames;
+    private HashMap<ReferenceJType, String> autoNames;
+    private Map<String, AbstractJType> autoImports;
+    private Map<String, StaticRefJExpr> autoStaticImports;
     private final String packageName;
     private final String fileName;
     private boolean packageWritten;
+    private boolean committed;
+    private boolean discarded;
 
     ImplJSourceFile(final ImplJSources sources, final String packageName, final String fileName) {
         this.sources = sources;
@@ -45,13 +66,18 @@ class ImplJSourceFile extends BasicJCommentable implements JSourceFile {
     }
 
     private <C extends ClassFileContent> C add(C item) {
+        ArrayList<ClassFileContent> content = this.content;
+        if (content == null) {
+            content = this.content = new ArrayList<>(4);
+        }
         content.add(item);
         return item;
     }
 
     private void checkPackage() {
+        checkModifiable();
         if (! packageWritten) {
-            content.add(new ClassFileContent() {
+            add(new ClassFileContent() {
                 @Override
                 public void write(final SourceFileWriter writer) throws IOException {
                     writer.write($KW.PACKAGE);
@@ -59,31 +85,40 @@ class ImplJSourceFile extends BasicJCommentable implements JSourceFile {
                     writer.writeEscaped(packageName);
                     writer.write($PUNCT.SEMI);
                     writer.nl();
-                    final Map<String, AbstractJType> imports = ImplJSourceFile.this.imports;
-                    final Iterator<AbstractJType> iterator = imports.values().iterator();
-                    if (iterator.hasNext()) {
+                    if (writer.isQualifiedNames()) {
+                        return;
+                    }
+                    // imports are written in sorted order so that equal models always produce identical output
+                    final Map<String, AbstractJType> imports = autoImports != null ? autoImports : ImplJSourceFile.this.imports;
+                    if (imports != null && ! imports.isEmpty()) {
+                        final String[] names = new String[imports.size()];
+                        int i = 0;
+                        for (AbstractJType _import : imports.values()) {
+                            names[i ++] = _import.qualifiedName();
+                        }
+                        Arrays.sort(names);
                         writer.nl();
-                        do {
-                            final AbstractJType _import = iterator.next();
+                        for (String name : names) {
                             writer.write($KW.IMPORT);
-                            writer.writeClass(_import.qualifiedName());
+                            writer.writeClass(name);
                             writer.write($PUNCT.SEMI);
                             writer.nl();
-                        } while (iterator.hasNext());
+                        }
                         writer.nl();
                     }
-                    final Map<String, StaticRefJExpr> staticImports = ImplJSourceFile.this.staticImports;
-                    final Iterator<StaticRefJExpr> staticIterator = staticImports.values().iterator();
-                    if (staticIterator.hasNext()) {
+                    final Map<String, StaticRefJExpr> staticImports;
+                    staticImports = autoStaticImports != null ? autoStaticImports : ImplJSourceFile.this.staticImports;
+                    if (staticImports != null && ! staticImports.isEmpty()) {
+                        final StaticRefJExpr[] refs = staticImports.values().toArray(new StaticRefJExpr[0]);
+                        Arrays.sort(refs, STATIC_IMPORT_ORDER);
                         writer.nl();
-                        do {
-                            final StaticRefJExpr staticImport = staticIterator.next();
+                        for (StaticRefJExpr staticImport : refs) {
                             writer.write($KW.IMPORT);
                             writer.write($KW.STATIC);
                             staticImport.writeForImport(writer);
                             writer.write($PUNCT.SEMI);
                             writer.nl();
-                        } while (staticIterator.hasNext());
+                        }
                         writer.nl();
                     }
                 }
@@ -93,20 +128,148 @@ class ImplJSourceFile extends BasicJCommentable implements JSourceFile {
     }
 
     boolean hasImport(final String name) {
-        return imports.containsKey(name);
+        return imports != null && imports.containsKey(name);
     }
 
     boolean hasImport(final AbstractJType type) {
-        return type.equals(imports.get(type.simpleName()));
+        if (imports != null && type.equals(imports.get(type.simpleName()))) {
+            if (usedImports != null) {
+                usedImports.add(type);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    String typeName(final ReferenceJType type) {
+        final LinkedHashMap<ReferenceJType, int[]> referenced = this.referenced;
+        if (referenced != null) {
+            final int[] count = referenced.get(type);
+            if (count == null) {
+                referenced.put(type, new int[] { 1 });
+            } else {
+                count[0] ++;
+            }
+            return type.qualifiedName();
+        }
+        IdentityHashMap<ReferenceJType, String> typeNames = this.typeNames;
+        if (typeNames == null) {
+            typeNames = this.typeNames = new IdentityHashMap<>();
+        }
+        String name = typeNames.get(type);
+        if (name == null) {
+            final HashMap<ReferenceJType, String> autoNames = this.autoNames;
+            typeNames.put(type, name = autoNames == null ? type.resolveName(this) : autoNames.getOrDefault(type, type.qualifiedName()));
+        }
+        return name;
+    }
+
+    /**
+     * Record a class or type parameter name declared in this file, which no import may shadow.
+     *
+     * @param name the simple name
+     * @param topLevel {@code true} for a top level class, {@code false} for a nested class or type parameter
+     */
+    void declareName(final String name, final boolean topLevel) {
+        if (declaredNames != null) {
+            declaredNames.merge(name, Boolean.valueOf(topLevel), Boolean::logicalAnd);
+        }
+    }
+
+    /**
+     * Walk this file to find the referenced types, and compute the imports for the next write.
+     *
+     * @param sourceFileWriter the writer to walk with, {@linkplain SourceFileWriter#openForImports opened} for imports
+     * @throws IOException if rendering fails
+     */
+    void collectImports(final SourceFileWriter sourceFileWriter) throws IOException {
+        referenced = new LinkedHashMap<>();
+        usedImports = new HashSet<>();
+        usedStaticImports = new HashSet<>();
+        declaredNames = new HashMap<>();
+        try {
+            write(sourceFileWriter);
+            computeImports();
+        } finally {
+            referenced = null;
+            usedImports = null;
+            usedStaticImports = null;
+            declaredNames = null;
+        }
+    }
+
+    private void computeImports() {
+        final LinkedHashMap<ReferenceJType, int[]> referenced = this.referenced;
+        final HashMap<String, Boolean> declaredNames = this.declaredNames;
+        // the type which each simple name refers to, whether imported or implicitly visible
+        final HashMap<String, AbstractJType> owners = new HashMap<>();
+        final LinkedHashMap<String, AbstractJType> autoImports = new LinkedHashMap<>();
+        if (imports != null) for (AbstractJType type : imports.values()) {
+            // explicit imports are kept only if used
+            if (usedImports.contains(type) || type instanceof ReferenceJType rjt && referenced.containsKey(rjt)) {
+                owners.put(type.simpleName(), type);
+                autoImports.put(type.simpleName(), type);
+            }
+        }
+        // pick the most referenced candidate for each remaining name; ties go to the first referenced
+        final HashMap<String, ReferenceJType> best = new HashMap<>();
+        for (Map.Entry<ReferenceJType, int[]> entry : referenced.entrySet()) {
+            final ReferenceJType type = entry.getKey();
+            final String name = type.simpleName();
+            final String typePackage = type.getPackageName();
+            if (typePackage.isEmpty() || owners.containsKey(name)) {
+                continue;
+            }
+            final Boolean topLevel = declaredNames.get(name);
+            if (topLevel != null && ! (topLevel.booleanValue() && typePackage.equals(packageName))) {
+                // only the declared class itself may be referenced by this name
+                continue;
+            }
+            final ReferenceJType current = best.get(name);
+            if (current == null || entry.getValue()[0] > referenced.get(current)[0]) {
+                best.put(name, type);
+            }
+        }
+        for (ReferenceJType type : best.values()) {
+            final String name = type.simpleName();
+            owners.put(name, type);
+            final String typePackage = type.getPackageName();
+            if (! typePackage.equals(packageName) && ! (typePackage.equals("java.lang") && ! sources.hasClass(packageName + "." + name))) {
+                autoImports.put(name, type);
+            }
+        }
+        final HashMap<ReferenceJType, String> autoNames = new HashMap<>();
+        for (ReferenceJType type : referenced.keySet()) {
+            final String name = type.simpleName();
+            final boolean simple = type.getPackageName().isEmpty() || type.equals(owners.get(name)) && declaredNames.get(name) != Boolean.FALSE;
+            autoNames.put(type, simple ? name : type.qualifiedName());
+        }
+        // explicit static imports are likewise kept only if used
+        final LinkedHashMap<String, StaticRefJExpr> autoStaticImports = new LinkedHashMap<>();
+        if (staticImports != null) for (StaticRefJExpr expr : staticImports.values()) {
+            if (usedStaticImports.contains(expr)) {
+                autoStaticImports.put(expr.getName(), expr);
+            }
+        }
+        this.autoNames = autoNames;
+        this.autoImports = autoImports;
+        this.autoStaticImports = autoStaticImports;
+        typeNames = null;
     }
 
     boolean hasStaticImport(final String name) {
-        return staticImports.containsKey(name);
+        return staticImports != null && staticImports.containsKey(name);
     }
 
     boolean hasStaticImport(final String name, final AbstractJType enclosingType) {
-        final StaticRefJExpr expr = staticImports.get(name);
-        return expr != null && enclosingType.equals(expr.getType());
+        final StaticRefJExpr expr = staticImports == null ? null : staticImports.get(name);
+        if (expr != null && enclosingType.equals(expr.getType())) {
+            if (usedStaticImports != null) {
+                usedStaticImports.add(expr);
+            }
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -116,16 +279,28 @@ class ImplJSourceFile extends BasicJCommentable implements JSourceFile {
 
     @Override
     public JSourceFile _import(final JType type) {
+        checkModifiable();
         if (! (type instanceof ReferenceJType) && ! (type instanceof NestedJType) && ! (type instanceof NarrowedJType)) {
             // can't import this type
             return this;
         }
-        if (imports.containsKey(type.simpleName())) {
+        if (sources.getFormat().hasOption(FormatPreferences.Opt.QUALIFIED_NAMES)) {
+            // imports are never used
+            return this;
+        }
+        if (hasImport(type.simpleName())) {
             // already imported
             return this;
         }
         checkPackage();
+        if (imports == null) {
+            imports = new HashMap<>();
+        }
         imports.put(type.simpleName(), (AbstractJType) type.erasure());
+        typeNames = null;
+        autoNames = null;
+        autoImports = null;
+        autoStaticImports = null;
         return this;
     }
 
@@ -141,16 +316,25 @@ class ImplJSourceFile extends BasicJCommentable implements JSourceFile {
 
     @Override
     public JSourceFile importStatic(final JType type, final String member) {
+        checkModifiable();
         if (! (type instanceof ReferenceJType) && ! (type instanceof NestedJType)) {
             // no static members
             return this;
         }
-        if (staticImports.containsKey(member)) {
+        if (sources.getFormat().hasOption(FormatPreferences.Opt.QUALIFIED_NAMES)) {
+            // imports are never used
+            return this;
+        }
+        if (hasStaticImport(member)) {
             // already imported
             return this;
         }
         checkPackage();
+        if (staticImports == null) {
+            staticImports = new HashMap<>();
+        }
         staticImports.put(member, new StaticRefJExpr(AbstractJType.of(type), member));
+        autoStaticImports = null;
         return this;
     }
 
@@ -198,10 +382,83 @@ class ImplJSourceFile extends BasicJCommentable implements JSourceFile {
         return fileName;
     }
 
+    @Override
+    public void writeTo(final Appendable target) throws IOException {
+        checkModifiable();
+        sources.writeTo(this, target);
+    }
+
+    @Override
+    public void commit() throws IOException {
+        checkDiscarded();
+        if (committed) {
+            throw new IllegalStateException("Source file has already been committed");
+        }
+        committed = true;
+        sources.commit(this);
+    }
+
+    /**
+     * Check that this file may still be changed.  Once committed, a file may be rendered on another thread at any time,
+     * and its content is released afterwards.
+     */
+    void checkModifiable() {
+        checkDiscarded();
+        if (committed) {
+            throw new IllegalStateException("Source file has been committed");
+        }
+    }
+
+    void checkDiscarded() {
+        if (discarded) {
+            throw new IllegalStateException("Source file was discarded when its sources were cleared");
+        }
+    }
+
+    void discard() {
+        discarded = true;
+        release();
+    }
+
+    void release() {
+        content = null;
+        imports = null;
+        staticImports = null;
+        typeNames = null;
+        autoNames = null;
+        autoImports = null;
+        autoStaticImports = null;
+    }
+
+    int estimateWeight() {
+        int weight = 1;
+        if (imports != null) {
+            weight += imports.size();
+        }
+        if (staticImports != null) {
+            weight += staticImports.size();
+        }
+        if (content != null) for (ClassFileContent item : content) {
+            weight += item instanceof AbstractJClassDef classDef ? classDef.estimateWeight() : 1;
+        }
+        return weight;
+    }
+
     void write(final SourceFileWriter sourceFileWriter) throws IOException {
         sourceFileWriter.setClassFile(this);
-        for (ClassFileContent item : content) {
-            item.write(sourceFileWriter);
+        try {
+            final ArrayList<ClassFileContent> content = this.content;
+            if (content != null) for (ClassFileContent item : content) {
+                item.write(sourceFileWriter);
+            }
+        } finally {
+            // other files may have added classes which shadow java.lang by the next write
+            typeNames = null;
+            if (referenced == null) {
+                autoNames = null;
+                autoImports = null;
+                autoStaticImports = null;
+            }
         }
         sourceFileWriter.setClassFile(null);
     }
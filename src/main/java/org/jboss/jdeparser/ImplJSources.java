@@ -19,12 +19,16 @@
 package org.jboss.jdeparser;
 
 import java.io.IOException;
-import java.io.Writer;
-import java.util.ArrayList;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -34,13 +38,26 @@ class ImplJSources implements JSources {
     private final JFiler filer;
     private final FormatPreferences format;
 
-    private final List<ImplJSourceFile> classFiles = new ArrayList<>();
+    private final Executor executor;
+    private final int maxOpenFiles;
+    private final Set<ImplJSourceFile> classFiles = new LinkedHashSet<>();
     private final Map<String, AbstractJClassDef> classes = new HashMap<>();
     private final Map<AbstractJClassDef, String> qualifiedNames = new IdentityHashMap<>();
+    private int writtenFileCount;
+    private int unchangedFileCount;
+    private final LinkedBlockingQueue<Rendered> results = new LinkedBlockingQueue<>();
+    // idle writers, most recently used first; never larger than the peak number of concurrent renders.  The pool is
+    // owned by this instance rather than by each thread so that idle executor threads do not keep buffers alive; it
+    // is released with the sources and is not affected by JDeparser.dropCaches()
+    private final ConcurrentLinkedDeque<SourceFileWriter> writers = new ConcurrentLinkedDeque<>();
+    private int pending;
+    private Throwable problem;
 
-    ImplJSources(final JFiler filer, final FormatPreferences format) {
+    ImplJSources(final JFiler filer, final FormatPreferences format, final Executor executor, final int maxOpenFiles) {
         this.filer = filer;
         this.format = format;
+        this.executor = executor;
+        this.maxOpenFiles = maxOpenFiles;
     }
 
     void addClassDef(String qualifiedName, AbstractJClassDef classDef) {
@@ -48,6 +65,10 @@ class ImplJSources implements JSources {
         qualifiedNames.put(classDef, qualifiedName);
     }
 
+    FormatPreferences getFormat() {
+        return format;
+    }
+
     boolean hasClass(String qualifiedName) {
         return classes.containsKey(qualifiedName);
     }
@@ -70,12 +91,255 @@ class ImplJSources implements JSources {
 
     @Override
     public void writeSources() throws IOException {
+        while (pending > 0) {
+            collect();
+        }
+        throwProblem();
+        for (ImplJSourceFile classFile : classFiles) {
+            count(writeSource(classFile));
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (pending > 0) {
+            throw new IllegalStateException("Committed source files are still being written");
+        }
         for (ImplJSourceFile classFile : classFiles) {
-            try (Writer writer = filer.openWriter(classFile.getPackageName(), classFile.getFileName())) {
-                try (SourceFileWriter sourceFileWriter = new SourceFileWriter(format, writer)) {
-                    classFile.write(sourceFileWriter);
+            classFile.discard();
+        }
+        classFiles.clear();
+        classes.clear();
+        qualifiedNames.clear();
+        writtenFileCount = 0;
+        unchangedFileCount = 0;
+        problem = null;
+    }
+
+    @Override
+    public int getWrittenFileCount() {
+        return writtenFileCount;
+    }
+
+    @Override
+    public int getUnchangedFileCount() {
+        return unchangedFileCount;
+    }
+
+    private void count(final boolean written) {
+        if (written) {
+            writtenFileCount ++;
+        } else {
+            unchangedFileCount ++;
+        }
+    }
+
+    @Override
+    public void writeSources(final Executor executor) throws IOException {
+        writeSources(executor, Runtime.getRuntime().availableProcessors() << 1);
+    }
+
+    @Override
+    public void writeSources(final Executor executor, final int maxOpenFiles) throws IOException {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        if (maxOpenFiles < 1) {
+            throw new IllegalArgumentException("maxOpenFiles must be at least 1");
+        }
+        final ImplJSourceFile[] files = classFiles.toArray(new ImplJSourceFile[0]);
+        final int cnt = files.length;
+        // sort by estimated weight, keeping the file index in the low bits
+        final long[] order = new long[cnt];
+        for (int i = 0; i < cnt; i ++) {
+            order[i] = (long) files[i].estimateWeight() << 32 | i;
+        }
+        Arrays.sort(order);
+        int submitted = 0;
+        while (pending > 0 || problem == null && submitted < cnt) {
+            if (problem == null && submitted < cnt && pending < maxOpenFiles) {
+                // largest first, so the longest file does not finish last
+                submit(executor, files[(int) order[cnt - 1 - submitted]], false);
+                submitted ++;
+            } else {
+                collect();
+            }
+        }
+        throwProblem();
+    }
+
+    void commit(final ImplJSourceFile classFile) throws IOException {
+        if (! classFiles.remove(classFile)) {
+            throw new IllegalStateException("Source file has already been committed");
+        }
+        if (executor == null) {
+            try {
+                count(writeSource(classFile));
+            } finally {
+                classFile.release();
+            }
+            return;
+        }
+        // pick up whatever has finished so far, so that failures are reported early
+        Rendered rendered;
+        while ((rendered = results.poll()) != null) {
+            collected(rendered);
+        }
+        while (pending >= maxOpenFiles) {
+            collect();
+        }
+        if (problem == null) {
+            submit(executor, classFile, true);
+        }
+        throwProblem();
+    }
+
+    private void submit(final Executor executor, final ImplJSourceFile classFile, final boolean release) {
+        final boolean threadSafe = filer.isThreadSafe();
+        try {
+            executor.execute(() -> results.add(render(classFile, threadSafe, release)));
+            pending ++;
+        } catch (RuntimeException e) {
+            problem(e);
+        }
+    }
+
+    private void collect() throws InterruptedIOException {
+        final Rendered rendered;
+        try {
+            rendered = results.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing sources");
+        }
+        collected(rendered);
+    }
+
+    private void collected(final Rendered rendered) {
+        pending --;
+        if (rendered.problem != null) {
+            problem(rendered.problem);
+        } else if (rendered.content == null && rendered.chars == null) {
+            count(rendered.written);
+        } else if (problem == null) {
+            final ImplJSourceFile classFile = rendered.classFile;
+            try {
+                if (rendered.chars != null) {
+                    filer.writeChars(classFile.getPackageName(), classFile.getFileName(), rendered.chars);
+                    count(true);
+                } else {
+                    count(filer.writeBuffered(classFile.getPackageName(), classFile.getFileName(), rendered.content));
                 }
+            } catch (IOException | RuntimeException e) {
+                problem(e);
+            }
+        }
+    }
+
+    private void problem(final Throwable t) {
+        if (problem == null) {
+            problem = t;
+        } else {
+            problem.addSuppressed(t);
+        }
+    }
+
+    private void throwProblem() throws IOException {
+        final Throwable problem = this.problem;
+        this.problem = null;
+        if (problem instanceof IOException e) {
+            throw e;
+        } else if (problem instanceof RuntimeException e) {
+            throw e;
+        } else if (problem instanceof Error e) {
+            throw e;
+        } else if (problem != null) {
+            throw new IOException(problem);
+        }
+    }
+
+    private Rendered render(final ImplJSourceFile classFile, final boolean direct, final boolean release) {
+        try {
+            if (direct) {
+                return new Rendered(classFile, null, null, null, writeSource(classFile));
+            }
+            if (filer.hasCustomWriter() && ! filer.isBuffered()) {
+                // the filer's own writer must see the characters, just as it would when writing serially
+                final StringBuilder chars = new StringBuilder();
+                writeTo(classFile, chars);
+                return new Rendered(classFile, null, chars, null, false);
+            }
+            return new Rendered(classFile, renderSource(classFile), null, null, false);
+        } catch (Throwable t) {
+            return new Rendered(classFile, null, null, t, false);
+        } finally {
+            if (release) {
+                classFile.release();
             }
         }
     }
+
+    private boolean writeSource(final ImplJSourceFile classFile) throws IOException {
+        if (filer.isBuffered()) {
+            return filer.writeBuffered(classFile.getPackageName(), classFile.getFileName(), renderSource(classFile));
+        }
+        write(classFile, recycled -> filer.openCountingWriter(classFile.getPackageName(), classFile.getFileName(), recycled));
+        return true;
+    }
+
+    void writeTo(final ImplJSourceFile classFile, final Appendable target) throws IOException {
+        write(classFile, recycled -> new AppendableCountingWriter(target));
+    }
+
+    private SourceBuffer renderSource(final ImplJSourceFile classFile) throws IOException {
+        final SourceBuffer content = new SourceBuffer();
+        write(classFile, recycled -> filer.newCountingWriter(content, recycled));
+        return content;
+    }
+
+    private void write(final ImplJSourceFile classFile, final CountingWriterFactory factory) throws IOException {
+        final SourceFileWriter pooled = writers.pollFirst();
+        final SourceFileWriter sourceFileWriter = pooled == null ? new SourceFileWriter() : pooled;
+        boolean ok = false;
+        try {
+            final CountingWriter recycled = sourceFileWriter.getCountingWriter();
+            if (format.hasOption(FormatPreferences.Opt.AUTO_IMPORTS) && ! format.hasOption(FormatPreferences.Opt.QUALIFIED_NAMES)) {
+                // walk the model once to find out which types are referenced, without formatting anything
+                sourceFileWriter.openForImports(format);
+                classFile.collectImports(sourceFileWriter);
+                sourceFileWriter.reset(true);
+            }
+            sourceFileWriter.open(format, factory.create(recycled));
+            try (sourceFileWriter) {
+                classFile.write(sourceFileWriter);
+            }
+            ok = true;
+        } finally {
+            try {
+                sourceFileWriter.reset(ok);
+            } finally {
+                writers.offerFirst(sourceFileWriter);
+            }
+        }
+    }
+
+    interface CountingWriterFactory {
+        CountingWriter create(CountingWriter recycled) throws IOException;
+    }
+
+    static final class Rendered {
+        final ImplJSourceFile classFile;
+        final SourceBuffer content;
+        final CharSequence chars;
+        final Throwable problem;
+        final boolean written;
+
+        Rendered(final ImplJSourceFile classFile, final SourceBuffer content, final CharSequence chars, final Throwable problem, final boolean written) {
+            this.classFile = classFile;
+            this.content = content;
+            this.chars = chars;
+            this.problem = problem;
+            this.written = written;
+        }
+    }
 }
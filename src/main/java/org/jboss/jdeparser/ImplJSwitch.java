@@ -40,6 +40,7 @@ class ImplJSwitch extends BasicJCommentable implements JSwitch, BlockContent {
     }
 
     private <T extends CaseJBlock> T add(T item) {
+        parent.checkModifiable();
         cases.add(item);
         return item;
     }
@@ -57,6 +58,7 @@ class ImplJSwitch extends BasicJCommentable implements JSwitch, BlockContent {
     @Override
     public JBlock _default() {
         if (_default == null) {
+            parent.checkModifiable();
             _default = new DefaultJBlock(this);
         }
         return _default;
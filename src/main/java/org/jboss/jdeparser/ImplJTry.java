@@ -59,12 +59,14 @@ class ImplJTry extends BasicJBlock implements JTry {
     }
 
     private <T extends FirstJVarDeclaration> T add(T item) {
+        checkModifiable();
         if (resources == null) resources = new ArrayList<>();
         resources.add(item);
         return item;
     }
 
     private <T extends AbstractJExpr> T add(T item) {
+        checkModifiable();
         if (resources == null) resources = new ArrayList<>();
         resources.add(item);
         return item;
@@ -86,6 +88,7 @@ class ImplJTry extends BasicJBlock implements JTry {
     }
 
     private <T extends ImplJCatch> T add(T item) {
+        checkModifiable();
         if (catches == null) catches = new ArrayList<>();
         catches.add(item);
         return item;
@@ -110,6 +113,7 @@ class ImplJTry extends BasicJBlock implements JTry {
     @Override
     public JBlock _finally() {
         if (finallyBlock == null) {
+            checkModifiable();
             finallyBlock = new FinallyJBlock(this);
         }
         return finallyBlock;
@@ -114,6 +114,7 @@ class ImplJTypeParamDef implements JTypeParamDef {
     }
 
     void write(final SourceFileWriter sourceFileWriter) throws IOException {
+        sourceFileWriter.getClassFile().declareName(name, false);
         sourceFileWriter.writeClass(name);
         writeList(sourceFileWriter, _extends, $KW.EXTENDS);
         writeList(sourceFileWriter, _super, $KW.SUPER);
@@ -25,8 +25,8 @@ import java.io.IOException;
  */
 class InitJBlock extends BasicJBlock implements ClassContent {
 
-    InitJBlock() {
-        super(null, Braces.REQUIRED);
+    InitJBlock(final ImplJSourceFile classFile) {
+        super(null, Braces.REQUIRED, classFile);
     }
 
     @Override
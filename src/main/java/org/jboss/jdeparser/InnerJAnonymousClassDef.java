@@ -28,12 +28,12 @@ class InnerJAnonymousClassDef extends ImplJAnonymousClassDef {
 
     InnerJAnonymousClassDef(final AbstractJExpr expr, final JType type) {
         super(type);
-        this.expr = expr.prec() > prec() ? new ParenJExpr(expr) : expr;
+        this.expr = expr;
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.write(expr);
+        writer.write(expr, prec());
         writer.write($PUNCT.DOT);
         super.write(writer);
     }
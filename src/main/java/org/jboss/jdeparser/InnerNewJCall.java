@@ -31,12 +31,12 @@ class InnerNewJCall extends NewJCall {
 
     InnerNewJCall(final AbstractJExpr target, final JType type) {
         super(AbstractJType.of(type));
-        this.target = target.prec() > prec() ? new ParenJExpr(target) : target;
+        this.target = target;
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.write(target);
+        writer.write(target, prec());
         writer.write($PUNCT.DOT);
         super.write(writer);
     }
@@ -31,7 +31,7 @@ class InstanceJCall extends AbstractMethodJCall {
 
     InstanceJCall(final AbstractJExpr target, final String name) {
         super(name);
-        this.target = target.prec() > prec() ? new ParenJExpr(target) : target;
+        this.target = target;
     }
 
     JExpr getTarget() {
@@ -40,7 +40,7 @@ class InstanceJCall extends AbstractMethodJCall {
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        writer.write(AbstractJExpr.of(target));
+        writer.write(AbstractJExpr.of(target), prec());
         writer.write($PUNCT.DOT);
         super.write(writer);
     }
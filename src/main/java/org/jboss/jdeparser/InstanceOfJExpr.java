@@ -32,7 +32,7 @@ class InstanceOfJExpr extends AbstractJExpr {
 
     InstanceOfJExpr(final AbstractJExpr expr, final JType type) {
         super(Prec.INSTANCEOF);
-        this.expr = expr.prec() > Prec.INSTANCEOF ? new ParenJExpr(expr) : expr;
+        this.expr = expr;
         this.type = type;
     }
 
@@ -50,7 +50,7 @@ class InstanceOfJExpr extends AbstractJExpr {
         if (writerState == $WORD || writerState == $NUMBER || writerState instanceof $KW) {
             writer.sp();
         }
-        writer.write(expr);
+        writer.write(expr, Prec.INSTANCEOF);
         writer.write($KW.INSTANCEOF);
         writer.write(type);
     }
@@ -25,23 +25,53 @@ import java.io.IOException;
  */
 class IntegerJExpr extends AbstractJExpr implements JExpr {
 
-    private final int val;
-    private final int radix;
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
 
-    IntegerJExpr(final int val, final int radix) {
+    /**
+     * Lazily populated literals for small values, indexed by value minus {@link #CACHE_LOW}.  Racing threads may each
+     * create an instance, which is harmless since they are equal and immutable.
+     */
+    private static final IntegerJExpr[] DECIMAL = new IntegerJExpr[CACHE_HIGH - CACHE_LOW + 1];
+    private static final IntegerJExpr[] HEX = new IntegerJExpr[CACHE_HIGH - CACHE_LOW + 1];
+    private static final IntegerJExpr[] BINARY = new IntegerJExpr[CACHE_HIGH - CACHE_LOW + 1];
+
+    private final String text;
+
+    private IntegerJExpr(final int val, final int radix) {
         super(0);
-        this.val = val;
-        this.radix = radix;
+        text = switch (radix) {
+            case 2 -> "0b" + Integer.toBinaryString(val);
+            case 16 -> "0x" + Integer.toHexString(val);
+            default -> Integer.toString(val, radix);
+        };
+    }
+
+    static IntegerJExpr of(final int val, final int radix) {
+        if (val < CACHE_LOW || val > CACHE_HIGH) {
+            return new IntegerJExpr(val, radix);
+        }
+        final IntegerJExpr[] cache = switch (radix) {
+            case 2 -> BINARY;
+            case 16 -> HEX;
+            case 10 -> DECIMAL;
+            default -> null;
+        };
+        if (cache == null) {
+            return new IntegerJExpr(val, radix);
+        }
+        final int idx = val - CACHE_LOW;
+        IntegerJExpr expr = cache[idx];
+        if (expr == null) {
+            cache[idx] = expr = new IntegerJExpr(val, radix);
+        }
+        return expr;
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
         writer.addWordSpace();
         writer.write(Tokens.$NUMBER);
-        switch (radix) {
-            case 2 -> writer.writeEscaped("0b" + Integer.toBinaryString(val));
-            case 16 -> writer.writeEscaped("0x" + Integer.toHexString(val));
-            default -> writer.writeEscaped(Integer.toString(val, radix));
-        }
+        writer.writeEscaped(text);
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A process-wide, thread safe table which keeps a single canonical value per key.  Lookups never lock; a value may be
+ * held strongly, or softly or weakly so that the garbage collector can evict values which are no longer in use.  Values
+ * are never evicted to stay within the configured capacity, since that would give a key a second canonical value;
+ * instead, once the table is full, values for new keys are returned without being stored.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class InternTable<K, V> {
+
+    enum Retention {
+        STRONG,
+        SOFT,
+        WEAK,
+        ;
+
+        /**
+         * Get the retention named by the given system property, or {@link #STRONG} if it is not set.
+         *
+         * @param propertyName the system property name
+         * @return the retention
+         */
+        static Retention fromProperty(String propertyName) {
+            return fromProperty(propertyName, STRONG);
+        }
+
+        /**
+         * Get the retention named by the given system property.
+         *
+         * @param propertyName the system property name
+         * @param defaultRetention the retention to use if the property is not set
+         * @return the retention
+         */
+        static Retention fromProperty(String propertyName, Retention defaultRetention) {
+            final String value = System.getProperty(propertyName);
+            return value == null ? defaultRetention : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final ConcurrentHashMap<K, Object> map = new ConcurrentHashMap<>();
+    private final Retention retention;
+    private final ReferenceQueue<V> queue;
+    private final CacheCounters counters;
+
+    InternTable(final Retention retention, final CacheCounters counters) {
+        this.retention = retention;
+        this.counters = counters;
+        queue = retention == Retention.STRONG ? null : new ReferenceQueue<>();
+    }
+
+    /**
+     * Get the value for the given key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(final K key) {
+        final Object val = map.get(key);
+        final V value = val == null ? null : retention == Retention.STRONG ? (V) val : ((Reference<V>) val).get();
+        if (value == null) {
+            counters.miss();
+        } else {
+            counters.hit();
+        }
+        return value;
+    }
+
+    /**
+     * Get the value for the given key, storing the given value if there is none and the table is not full.
+     *
+     * @param key the key
+     * @param value the value to store if the key is absent
+     * @return the canonical value, or {@code value} if it was stored or the table is full
+     */
+    @SuppressWarnings("unchecked")
+    V intern(final K key, final V value) {
+        if (retention == Retention.STRONG) {
+            final Object existing = isFull() ? map.get(key) : map.putIfAbsent(key, value);
+            return existing == null ? value : (V) existing;
+        }
+        expunge();
+        if (isFull()) {
+            final Object existing = map.get(key);
+            final V existingValue = existing == null ? null : ((Reference<V>) existing).get();
+            return existingValue == null ? value : existingValue;
+        }
+        final Reference<V> ref = retention == Retention.SOFT ? new SoftEntry<>(key, value, queue) : new WeakEntry<>(key, value, queue);
+        for (;;) {
+            final Object existing = map.putIfAbsent(key, ref);
+            if (existing == null) {
+                return value;
+            }
+            final V existingValue = ((Reference<V>) existing).get();
+            if (existingValue != null) {
+                return existingValue;
+            }
+            // cleared but not yet expunged
+            if (map.replace(key, existing, ref)) {
+                return value;
+            }
+        }
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    void clear() {
+        map.clear();
+        if (queue != null) {
+            while (queue.poll() != null) {
+                // discard
+            }
+        }
+    }
+
+    private void expunge() {
+        Reference<? extends V> ref;
+        while ((ref = queue.poll()) != null) {
+            if (map.remove(((Entry<?>) ref).getKey(), ref)) {
+                counters.evicted();
+            }
+        }
+    }
+
+    /**
+     * Determine whether the table has reached its capacity.  Concurrent additions may overshoot it slightly.
+     *
+     * @return {@code true} if no more keys should be added
+     */
+    private boolean isFull() {
+        return map.size() >= counters.getCapacity();
+    }
+
+    CacheStatistics getStatistics() {
+        return counters.getStatistics(map.size());
+    }
+
+    interface Entry<K> {
+        K getKey();
+    }
+
+    static final class SoftEntry<K, V> extends SoftReference<V> implements Entry<K> {
+        private final K key;
+
+        SoftEntry(final K key, final V value, final ReferenceQueue<? super V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        public K getKey() {
+            return key;
+        }
+    }
+
+    static final class WeakEntry<K, V> extends WeakReference<V> implements Entry<K> {
+        private final K key;
+
+        WeakEntry(final K key, final V value, final ReferenceQueue<? super V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        public K getKey() {
+            return key;
+        }
+    }
+}
@@ -151,4 +151,8 @@ class JClassDefSectionImpl implements JClassDefSection, ClassContent {
             }
         }
     }
+
+    int estimateWeight() {
+        return AbstractJClassDef.estimateWeight(content);
+    }
 }
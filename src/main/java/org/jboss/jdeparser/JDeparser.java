@@ -18,6 +18,8 @@
 
 package org.jboss.jdeparser;
 
+import java.util.concurrent.Executor;
+
 /**
  * The main entry point for this library.  Use this class to construct a collection of source files which can be
  * generated and stored.
@@ -37,16 +39,142 @@ public final class JDeparser {
      * @return the source collection
      */
     public static JSources createSources(final JFiler filer, final FormatPreferences format) {
-        return new ImplJSources(filer, format);
+        return new ImplJSources(filer, format, null, 0);
     }
 
     /**
-     * Drop all thread-local caches.  This can be done to save memory or avoid GC problems after source generation
-     * has been completed.  Call within a {@code finally} block to ensure that resources are released regardless of
-     * the outcome of intervening operations.
+     * Create a new source generation collection whose {@linkplain JSourceFile#commit() committed} source files are
+     * rendered in the background using the given executor.
+     *
+     * @param filer the filer to use to store generated sources
+     * @param format the formatting preferences to use for these sources
+     * @param executor the executor to render committed files on
+     * @return the source collection
+     */
+    public static JSources createSources(final JFiler filer, final FormatPreferences format, final Executor executor) {
+        return createSources(filer, format, executor, Runtime.getRuntime().availableProcessors() << 1);
+    }
+
+    /**
+     * Create a new source generation collection whose {@linkplain JSourceFile#commit() committed} source files are
+     * rendered in the background using the given executor.  Once {@code maxOpenFiles} committed files are in flight,
+     * committing another file waits for one of them to be written.
+     *
+     * @param filer the filer to use to store generated sources
+     * @param format the formatting preferences to use for these sources
+     * @param executor the executor to render committed files on
+     * @param maxOpenFiles the maximum number of committed files which may be in flight (open or buffered) at once
+     * @return the source collection
+     */
+    public static JSources createSources(final JFiler filer, final FormatPreferences format, final Executor executor, final int maxOpenFiles) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        if (maxOpenFiles < 1) {
+            throw new IllegalArgumentException("maxOpenFiles must be at least 1");
+        }
+        return new ImplJSources(filer, format, executor, maxOpenFiles);
+    }
+
+    /**
+     * Drop the shared type, generic type, and name caches.  This can be done to save memory or avoid GC problems after source
+     * generation has been completed.  The caches are shared by all threads, so this releases them regardless of which
+     * threads (or virtual threads) did the generating; it is safe, though wasteful, to call while generation is still
+     * in progress elsewhere.  Call within a {@code finally} block to ensure that resources are released regardless of
+     * the outcome of intervening operations.  Per-file rendering state is kept by each source collection and is
+     * released along with it.
      */
     public static void dropCaches() {
-        JExprs.cache.remove();
-        JTypes.cache.remove();
+        JExprs.names.clear();
+        JTypes.clearTypes();
+        NarrowedJType.narrowedTypes.clear();
+    }
+
+    /**
+     * Set the capacity of a cache.  For caches which are kept per type or per expression, the capacity applies to
+     * each instance, and the least recently added values are evicted as new values are added.  The shared tables never
+     * evict values, since each type or name must keep a single instance; once such a table is full, new values are
+     * simply not shared, so they are no longer identical to the values of later lookups of the same name.
+     *
+     * @param cache the cache
+     * @param capacity the new capacity, or {@code 0} to disable caching
+     */
+    public static void setCacheCapacity(final Cache cache, final int capacity) {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache is null");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity is negative");
+        }
+        cache.counters.setCapacity(capacity);
+    }
+
+    /**
+     * Get the capacity of a cache.
+     *
+     * @param cache the cache
+     * @return the capacity
+     */
+    public static int getCacheCapacity(final Cache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache is null");
+        }
+        return cache.counters.getCapacity();
+    }
+
+    /**
+     * Get a snapshot of the statistics of a cache.  Counts are cumulative for the life of the process.
+     *
+     * @param cache the cache
+     * @return the statistics
+     */
+    public static CacheStatistics getCacheStatistics(final Cache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache is null");
+        }
+        return switch (cache) {
+            case TYPE_NAMES -> JTypes.types.getStatistics();
+            case VARIABLE_NAMES -> JExprs.names.getStatistics();
+            case GENERIC_TYPES -> NarrowedJType.narrowedTypes.getStatistics();
+            default -> cache.counters.getStatistics();
+        };
+    }
+
+    /**
+     * The caches which can be sized and observed.
+     */
+    public enum Cache {
+        /**
+         * The shared table of types by qualified name, used by {@link JTypes#typeNamed(String)}.  Unbounded by default;
+         * if bounded, each type looked up after the table is full is a new instance.
+         */
+        TYPE_NAMES(Integer.MAX_VALUE),
+        /**
+         * The shared table of name expressions, used by {@link JExprs#name(String)}.  Unbounded by default.
+         */
+        VARIABLE_NAMES(Integer.MAX_VALUE),
+        /**
+         * The shared table of parameterized and wildcard types.  Unbounded by default.
+         */
+        GENERIC_TYPES(Integer.MAX_VALUE),
+        /**
+         * The static field references of each type.
+         */
+        STATIC_FIELD_REFS(12),
+        /**
+         * The field references of each expression.
+         */
+        FIELD_REFS(12),
+        /**
+         * The nested types of each type.
+         */
+        NESTED_TYPES(12),
+        ;
+
+        final CacheCounters counters;
+
+        Cache(final int capacity) {
+            counters = new CacheCounters(capacity);
+        }
     }
 }
@@ -58,12 +58,12 @@ public interface JExpr {
     /**
      * The constant expression for the integer zero.
      */
-    JExpr ZERO = new IntegerJExpr(0, 10);
+    JExpr ZERO = IntegerJExpr.of(0, 10);
 
     /**
      * The constant expression for the integer one.
      */
-    JExpr ONE = new IntegerJExpr(1, 10);
+    JExpr ONE = IntegerJExpr.of(1, 10);
 
     // arithmetic
 
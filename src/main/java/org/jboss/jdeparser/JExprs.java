@@ -18,8 +18,6 @@
 
 package org.jboss.jdeparser;
 
-import java.util.LinkedHashMap;
-
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 
@@ -36,7 +34,7 @@ public final class JExprs {
      * @return the value expression
      */
     public static JExpr decimal(int val) {
-        return new IntegerJExpr(val, 10);
+        return IntegerJExpr.of(val, 10);
     }
 
     /**
@@ -76,7 +74,7 @@ public final class JExprs {
      * @return the value expression
      */
     public static JExpr hex(int val) {
-        return new IntegerJExpr(val, 16);
+        return IntegerJExpr.of(val, 16);
     }
 
     /**
@@ -116,7 +114,7 @@ public final class JExprs {
      * @return the value expression
      */
     public static JExpr binary(int val) {
-        return new IntegerJExpr(val, 2);
+        return IntegerJExpr.of(val, 2);
     }
 
     /**
@@ -146,7 +144,7 @@ public final class JExprs {
      * @return the value expression
      */
     public static JExpr ch(int val) {
-        return new CharJExpr(val);
+        return CharJExpr.of(val);
     }
 
     /**
@@ -247,7 +245,11 @@ public final class JExprs {
         return name(varDeclaration.name());
     }
 
-    static final ThreadLocal<LinkedHashMap<String, JAssignableExpr>> cache = new CachingThreadLocal<>();
+    /**
+     * The process-wide table of name expressions.  Names are held softly, since they are cheap to recreate, unless the
+     * {@code jdeparser.name-retention} system property says otherwise.
+     */
+    static final InternTable<String, JAssignableExpr> names = new InternTable<>(InternTable.Retention.fromProperty("jdeparser.name-retention", InternTable.Retention.SOFT), JDeparser.Cache.VARIABLE_NAMES.counters);
 
     /**
      * Return a name expression.
@@ -256,12 +258,8 @@ public final class JExprs {
      * @return the expression
      */
     public static JAssignableExpr name(String name) {
-        final LinkedHashMap<String, JAssignableExpr> map = cache.get();
-        JAssignableExpr ret = map.get(name);
-        if (ret == null) {
-            map.put(name, ret = new NameJExpr(name));
-        }
-        return ret;
+        final JAssignableExpr ret = names.get(name);
+        return ret != null ? ret : names.intern(name, new NameJExpr(name));
     }
 
     /**
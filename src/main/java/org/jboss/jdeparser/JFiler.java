@@ -19,11 +19,16 @@
 package org.jboss.jdeparser;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import javax.annotation.processing.Filer;
 
@@ -62,6 +67,19 @@ public abstract class JFiler {
      * @return the JDeparser filer
      */
     public static JFiler newInstance(final File target) {
+        return newInstance(target, false);
+    }
+
+    /**
+     * Get an instance which writes to the filesystem.  If {@code onlyIfChanged} is {@code true}, each file is rendered
+     * into memory and compared with the file on disk, which is left untouched (keeping its modification time) if the
+     * content is unchanged.
+     *
+     * @param target the target source path
+     * @param onlyIfChanged {@code true} to skip writing files whose content is unchanged, {@code false} to always write
+     * @return the JDeparser filer
+     */
+    public static JFiler newInstance(final File target, final boolean onlyIfChanged) {
         return new JFiler() {
             @Override
             public OutputStream openStream(final String packageName, final String fileName) throws IOException {
@@ -69,13 +87,69 @@ public abstract class JFiler {
                 dir.mkdirs();
                 return new FileOutputStream(new File(dir, fileName + ".java"));
             }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+
+            @Override
+            boolean isBuffered() {
+                return onlyIfChanged;
+            }
+
+            @Override
+            boolean writeBuffered(final String packageName, final String fileName, final SourceBuffer content) throws IOException {
+                final File dir = new File(target, packageName.replace('.', File.separatorChar));
+                final File file = new File(dir, fileName + ".java");
+                if (onlyIfChanged && contentEquals(file, content)) {
+                    return false;
+                }
+                dir.mkdirs();
+                try (FileOutputStream os = new FileOutputStream(file)) {
+                    content.writeTo(os);
+                }
+                return true;
+            }
         };
     }
 
+    static boolean contentEquals(final File file, final SourceBuffer content) throws IOException {
+        final int size = content.size();
+        // cheap check first
+        if (! file.isFile() || file.length() != size) {
+            return false;
+        }
+        final byte[] expected = content.getBuffer();
+        final byte[] bytes = new byte[Math.min(size, 8192)];
+        try (FileInputStream is = new FileInputStream(file)) {
+            int pos = 0;
+            int res;
+            while (pos < size) {
+                res = is.read(bytes, 0, Math.min(bytes.length, size - pos));
+                if (res == -1 || ! Arrays.equals(bytes, 0, res, expected, pos, pos + res)) {
+                    return false;
+                }
+                pos += res;
+            }
+            // the file may have grown since we checked
+            return is.read() == -1;
+        }
+    }
+
+    private final boolean customWriter;
+
     /**
      * Construct a new instance.
      */
     protected JFiler() {
+        boolean customWriter;
+        try {
+            customWriter = getClass().getMethod("openWriter", String.class, String.class).getDeclaringClass() != JFiler.class;
+        } catch (NoSuchMethodException e) {
+            customWriter = true;
+        }
+        this.customWriter = customWriter;
     }
 
     private String encoding = "utf-8";
@@ -98,6 +172,68 @@ public abstract class JFiler {
         this.encoding = encoding;
     }
 
+    /**
+     * Determine whether streams may be opened and written concurrently by multiple threads.  If not, parallel writes
+     * render each file into memory and pass it to this filer on the thread which is writing the sources.  The default
+     * implementation returns {@code false}.
+     *
+     * @return {@code true} if this filer is thread safe, {@code false} otherwise
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Determine whether each file should be completely rendered into memory and passed to
+     * {@link #writeBuffered(String, String, SourceBuffer)} instead of being streamed.
+     *
+     * @return {@code true} to render into memory, {@code false} to stream
+     */
+    boolean isBuffered() {
+        return false;
+    }
+
+    /**
+     * Write out a file which was rendered into memory.  The default implementation writes the content to the stream
+     * returned by {@link #openStream(String, String)}.
+     *
+     * @param packageName the package name
+     * @param fileName the file name
+     * @param content the rendered file content
+     * @return {@code true} if the file was written, {@code false} if it was skipped because it was unchanged
+     * @throws IOException if an error occurs during write
+     */
+    boolean writeBuffered(String packageName, String fileName, SourceBuffer content) throws IOException {
+        try (OutputStream os = openStream(packageName, fileName)) {
+            content.writeTo(os);
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether {@link #openWriter(String, String)} is overridden, in which case output must be passed to it as
+     * characters rather than encoded by this class.
+     *
+     * @return {@code true} if the writer is customized
+     */
+    boolean hasCustomWriter() {
+        return customWriter;
+    }
+
+    /**
+     * Write out a file which was rendered into memory as characters, through {@link #openWriter(String, String)}.
+     *
+     * @param packageName the package name
+     * @param fileName the file name
+     * @param content the rendered file content
+     * @throws IOException if an error occurs during write
+     */
+    void writeChars(String packageName, String fileName, CharSequence content) throws IOException {
+        try (Writer writer = openWriter(packageName, fileName)) {
+            writer.append(content);
+        }
+    }
+
     /**
      * Open an output stream for writing the given file.
      *
@@ -120,4 +256,68 @@ public abstract class JFiler {
     public Writer openWriter(String packageName, String fileName) throws IOException {
         return new OutputStreamWriter(openStream(packageName, fileName), encoding);
     }
+
+    /**
+     * Open the output for the given file.  Unless {@link #openWriter(String, String)} is overridden, UTF-8 and ASCII
+     * output is encoded directly to the stream returned by {@link #openStream(String, String)}.
+     *
+     * @param packageName the package name
+     * @param fileName the file name
+     * @param recycled a previously used and closed counting writer which may be reset and returned, or {@code null}
+     * @return the counting writer
+     * @throws IOException if an error occurs during write
+     */
+    CountingWriter openCountingWriter(String packageName, String fileName, CountingWriter recycled) throws IOException {
+        if (customWriter) {
+            return newCountingWriter(openWriter(packageName, fileName), recycled);
+        }
+        final Charset charset = getCharset();
+        return newCountingWriter(openStream(packageName, fileName), charset, recycled);
+    }
+
+    /**
+     * Create a counting writer which writes to the given stream using this filer's encoding.
+     *
+     * @param os the output stream
+     * @param recycled a previously used and closed counting writer which may be reset and returned, or {@code null}
+     * @return the counting writer
+     * @throws IOException if the encoding is not supported
+     */
+    CountingWriter newCountingWriter(OutputStream os, CountingWriter recycled) throws IOException {
+        return newCountingWriter(os, getCharset(), recycled);
+    }
+
+    private static CountingWriter newCountingWriter(OutputStream os, Charset charset, CountingWriter recycled) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return newCountingWriter(os, false, recycled);
+        } else if (charset.equals(StandardCharsets.US_ASCII)) {
+            return newCountingWriter(os, true, recycled);
+        } else {
+            return newCountingWriter(new OutputStreamWriter(os, charset), recycled);
+        }
+    }
+
+    private static CountingWriter newCountingWriter(OutputStream os, boolean ascii, CountingWriter recycled) {
+        if (recycled instanceof ByteCountingWriter writer && writer.isAscii() == ascii) {
+            writer.reset(os);
+            return writer;
+        }
+        return new ByteCountingWriter(os, ascii);
+    }
+
+    private static CountingWriter newCountingWriter(Writer writer, CountingWriter recycled) {
+        if (recycled != null && recycled.getClass() == CountingWriter.class) {
+            recycled.reset(writer);
+            return recycled;
+        }
+        return new CountingWriter(writer);
+    }
+
+    private Charset getCharset() throws UnsupportedEncodingException {
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+    }
 }
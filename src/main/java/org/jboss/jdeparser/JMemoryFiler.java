@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A filer which keeps the generated sources in memory, for example to hand them to an in-process compiler.  Sources
+ * are rendered straight into character form without being encoded, and are keyed by their qualified name, that is,
+ * the package name and file name separated by a dot.  Writing the same file again replaces the previous content.
+ * This filer is thread safe.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class JMemoryFiler extends JFiler {
+
+    private final ConcurrentSkipListMap<String, CharSequence> sources = new ConcurrentSkipListMap<>();
+
+    /**
+     * Construct a new instance.
+     */
+    public JMemoryFiler() {
+    }
+
+    private static String key(final String packageName, final String fileName) {
+        return packageName.isEmpty() ? fileName : packageName + "." + fileName;
+    }
+
+    /**
+     * Get the content of a generated source file.
+     *
+     * @param packageName the package name
+     * @param fileName the file name (excluding {@code .java} suffix)
+     * @return the source content, or {@code null} if no such file was written
+     */
+    public CharSequence getSource(final String packageName, final String fileName) {
+        return sources.get(key(packageName, fileName));
+    }
+
+    /**
+     * Get the content of a generated source file, encoded using the {@linkplain #getEncoding() configured encoding}.
+     *
+     * @param packageName the package name
+     * @param fileName the file name (excluding {@code .java} suffix)
+     * @return a read-only buffer of the encoded source content, or {@code null} if no such file was written
+     */
+    public ByteBuffer getSourceBytes(final String packageName, final String fileName) {
+        final CharSequence source = getSource(packageName, fileName);
+        return source == null ? null : Charset.forName(getEncoding()).encode(CharBuffer.wrap(source)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get all of the generated source files, sorted by qualified name.
+     *
+     * @return an unmodifiable view of the source files, keyed by qualified name
+     */
+    public Map<String, CharSequence> getSources() {
+        return Collections.unmodifiableMap(sources);
+    }
+
+    @Override
+    public OutputStream openStream(final String packageName, final String fileName) {
+        return new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                sources.put(key(packageName, fileName), toString(getEncoding()));
+            }
+        };
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    CountingWriter openCountingWriter(final String packageName, final String fileName, final CountingWriter recycled) {
+        final StringBuilder b = new StringBuilder();
+        return new AppendableCountingWriter(b) {
+            @Override
+            public void close() {
+                sources.put(key(packageName, fileName), b.toString());
+            }
+        };
+    }
+}
@@ -18,6 +18,8 @@
 
 package org.jboss.jdeparser;
 
+import java.io.IOException;
+
 /**
  * A source file.
  *
@@ -118,4 +120,26 @@ public interface JSourceFile extends JCommentable {
      * @return the annotation interface definition
      */
     JClassDef annotationInterface(int mods, String name);
+
+    /**
+     * Render this source file to the given target, using the formatting preferences of the source collection which
+     * created it.  The target is not flushed or closed.
+     *
+     * @param target the target to append the source text to
+     * @throws IOException if appending to the target fails
+     */
+    void writeTo(Appendable target) throws IOException;
+
+    /**
+     * Mark this source file as complete.  The file is written and its model is released, so any later attempt to
+     * modify the file or its classes fails with {@code IllegalStateException}, and it will not be written again by
+     * {@link JSources#writeSources()}.  If the source collection was
+     * {@linkplain JDeparser#createSources(JFiler, FormatPreferences, java.util.concurrent.Executor) created with an executor},
+     * the file is rendered in the background while the caller goes on building other files; a failure is reported by a
+     * later call to this method or to {@code writeSources}, which also waits for all committed files to be written.
+     * Otherwise the file is written before this method returns.
+     *
+     * @throws IOException if writing this or a previously committed file failed
+     */
+    void commit() throws IOException;
 }
@@ -19,6 +19,7 @@
 package org.jboss.jdeparser;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
  * A repository of source files.
@@ -50,4 +51,59 @@ public interface JSources {
      * @throws IOException if a write operation fails
      */
     void writeSources() throws IOException;
+
+    /**
+     * Write the source files in parallel using the given executor, which may be a {@link java.util.concurrent.ForkJoinPool}.
+     * At most twice as many files as there are available processors are in flight at once.
+     *
+     * @param executor the executor to render files on
+     * @throws IOException if a write operation fails
+     * @see #writeSources(Executor, int)
+     */
+    void writeSources(Executor executor) throws IOException;
+
+    /**
+     * Write the source files in parallel using the given executor, which may be a {@link java.util.concurrent.ForkJoinPool}.
+     * Files are scheduled largest first.  If the filer is not {@linkplain JFiler#isThreadSafe() thread safe}, each file
+     * is rendered into memory by the executor and then written out on the calling thread, through
+     * {@link JFiler#openWriter(String, String)} if it is overridden.  The content of each file is
+     * identical to what {@link #writeSources()} would produce.
+     *
+     * @param executor the executor to render files on
+     * @param maxOpenFiles the maximum number of files which may be in flight (open or buffered) at once
+     * @throws IOException if a write operation fails
+     */
+    void writeSources(Executor executor, int maxOpenFiles) throws IOException;
+
+    /**
+     * Get the number of source files which have been written so far.  The count is cumulative over every call to
+     * {@code writeSources} and {@link JSourceFile#commit()} since this collection was created or last
+     * {@linkplain #clear() cleared}; a file which is written by two calls to {@code writeSources} is counted twice.
+     *
+     * @return the number of written files
+     */
+    int getWrittenFileCount();
+
+    /**
+     * Get the number of source files which were not written because the filer found their content unchanged.  Like
+     * {@link #getWrittenFileCount()}, the count is cumulative until this collection is {@linkplain #clear() cleared}.
+     *
+     * @return the number of unchanged files
+     * @see JFiler#newInstance(java.io.File, boolean)
+     */
+    int getUnchangedFileCount();
+
+    /**
+     * Discard all source files and reset the file counts, so that this instance can be used for another generation
+     * run.  The discarded files are not recycled; the next run builds its model from scratch.
+     * <p>
+     * Source files, class definitions, and other handles obtained before clearing belong to the previous run and must
+     * not be used afterwards.  Source files, class and method definitions, and their blocks throw
+     * {@link IllegalStateException} when new content is added to them; changes made through other stale handles, such
+     * as lambda bodies and anonymous classes, are never written.
+     *
+     * @throws IllegalStateException if committed source files are still being written; call {@link #writeSources()}
+     *      first to wait for them
+     */
+    void clear();
 }
@@ -0,0 +1,198 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+
+/**
+ * A memoizing converter from {@code TypeMirror} to {@code JType} for annotation processors.  There is one instance per
+ * processing environment, which lasts across rounds.  Conversions are keyed by the structure of the type: its kind,
+ * its name, and the conversions of its type arguments, bounds or component type.  A compiler may create a new mirror
+ * each time a type is looked up (javac does, and its mirrors compare by identity), so separately obtained mirrors of
+ * the same type share one conversion.  Each mirror which was seen is also remembered weakly, so converting the same
+ * mirror again does not even compute its key.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class JTypeMirrorCache {
+
+    private static final Map<ProcessingEnvironment, JTypeMirrorCache> caches = new WeakHashMap<>();
+
+    // javac type mirrors do not override equals, so for javac this is effectively a weak identity map
+    private final Map<TypeMirror, JType> types = new WeakHashMap<>();
+    private final Map<Key, JType> canonical = new HashMap<>();
+    private final CacheCounters counters = new CacheCounters(Integer.MAX_VALUE);
+
+    private JTypeMirrorCache() {
+    }
+
+    /**
+     * Get the conversion cache of a processing environment.
+     *
+     * @param env the processing environment
+     * @return the cache
+     */
+    public static JTypeMirrorCache of(ProcessingEnvironment env) {
+        if (env == null) {
+            throw new IllegalArgumentException("env is null");
+        }
+        synchronized (caches) {
+            return caches.computeIfAbsent(env, e -> new JTypeMirrorCache());
+        }
+    }
+
+    /**
+     * Get a {@code JType} that corresponds to the given {@code TypeMirror}.
+     *
+     * @param typeMirror the type mirror
+     * @return the {@code JType}
+     * @see JTypes#typeOf(TypeMirror)
+     */
+    public synchronized JType typeOf(TypeMirror typeMirror) {
+        JType type = types.get(typeMirror);
+        if (type == null) {
+            final Key key = keyOf(typeMirror);
+            type = canonical.get(key);
+            if (type == null) {
+                counters.miss();
+                type = JTypes.convert(typeMirror, this::typeOf);
+                canonical.put(key, type);
+            } else {
+                counters.hit();
+            }
+            types.put(typeMirror, type);
+        } else {
+            counters.hit();
+        }
+        return type;
+    }
+
+    private Key keyOf(TypeMirror typeMirror) {
+        final TypeKind kind = typeMirror.getKind();
+        if (typeMirror instanceof ArrayType at) {
+            return new Key(kind, null, typeOf(at.getComponentType()));
+        } else if (typeMirror instanceof WildcardType wildcardType) {
+            final TypeMirror extendsBound = wildcardType.getExtendsBound();
+            final TypeMirror superBound = wildcardType.getSuperBound();
+            final JType extendsType = extendsBound == null ? null : typeOf(extendsBound);
+            return new Key(kind, null, extendsType, superBound == null ? null : typeOf(superBound));
+        } else if (typeMirror instanceof TypeVariable typeVariable) {
+            return new Key(kind, typeVariable.asElement().getSimpleName().toString());
+        } else if (typeMirror instanceof DeclaredType declaredType) {
+            final TypeElement typeElement = (TypeElement) declaredType.asElement();
+            final TypeMirror enclosingType = declaredType.getEnclosingType();
+            if (enclosingType != null && enclosingType.getKind() == TypeKind.DECLARED) {
+                return new Key(kind, typeElement.getSimpleName().toString(), typeOf(enclosingType));
+            }
+            final List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+            final JType[] args = new JType[typeArguments.size()];
+            for (int i = 0; i < args.length; i ++) {
+                args[i] = typeOf(typeArguments.get(i));
+            }
+            return new Key(kind, typeElement.getQualifiedName().toString(), args);
+        } else {
+            // primitive and void types are identified by their kind
+            return new Key(kind, null);
+        }
+    }
+
+    /**
+     * Convert the return type and all of the parameter types of a method or constructor.  The first element of the
+     * result is the return type (which is {@link JType#VOID} for constructors), followed by each parameter type in
+     * declaration order.
+     *
+     * @param method the method or constructor element
+     * @return the converted types
+     */
+    public synchronized JType[] signatureOf(ExecutableElement method) {
+        final List<? extends VariableElement> parameters = method.getParameters();
+        final JType[] types = new JType[parameters.size() + 1];
+        types[0] = typeOf(method.getReturnType());
+        for (int i = 0; i < parameters.size(); i ++) {
+            types[i + 1] = typeOf(parameters.get(i).asType());
+        }
+        return types;
+    }
+
+    /**
+     * Get a snapshot of the statistics of this cache.  Every conversion of a mirror, including the nested mirrors of a
+     * conversion, counts as a hit or a miss.  Values are never evicted.
+     *
+     * @return the statistics
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return counters.getStatistics(canonical.size());
+    }
+
+    /**
+     * Discard all cached conversions.
+     */
+    public synchronized void clear() {
+        types.clear();
+        canonical.clear();
+    }
+
+    /**
+     * The structure of a type: its kind, its name if any, and the conversions of the types it is made of.
+     */
+    private static final class Key {
+        private final TypeKind kind;
+        private final String name;
+        private final JType[] parts;
+        private final int hashCode;
+
+        Key(final TypeKind kind, final String name, final JType... parts) {
+            this.kind = kind;
+            this.name = name;
+            this.parts = parts;
+            hashCode = (kind.hashCode() * 31 + Objects.hashCode(name)) * 31 + Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key key && equals(key);
+        }
+
+        private boolean equals(final Key key) {
+            return this == key || hashCode == key.hashCode && kind == key.kind && Objects.equals(name, key.name)
+                && Arrays.equals(parts, key.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
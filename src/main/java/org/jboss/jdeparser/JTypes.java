@@ -18,8 +18,8 @@
 
 package org.jboss.jdeparser;
 
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.function.Function;
 
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.ArrayType;
@@ -78,24 +78,69 @@ public final class JTypes {
     }
 
     /**
-     * Return the type corresponding to the given class.
+     * Return the type corresponding to the given class.  The result is cached for the life of the class, or until
+     * the caches are {@linkplain JDeparser#dropCaches() dropped}.
      *
      * @param clazz the class
      * @return the type
      */
     public static JType typeOf(Class<?> clazz) {
-        final Class<?> enclosingClass = clazz.getEnclosingClass();
-        if (enclosingClass != null) {
-            return $t(enclosingClass).$t(clazz.getSimpleName());
-        } else {
-            return $t(clazz.getName());
+        ClassType classType = classTypes.get(clazz);
+        if (classType.generation != generation) {
+            // the shared tables were cleared since, so the cached type may no longer be the one typeNamed returns
+            classTypes.remove(clazz);
+            classType = classTypes.get(clazz);
         }
+        return classType.type;
     }
 
-    static final ThreadLocal<LinkedHashMap<String, JType>> cache = new CachingThreadLocal<>();
+    /**
+     * Incremented after the shared type table is cleared, so that types cached per class are looked up again.
+     */
+    private static volatile int generation;
+
+    // held by each class, so an entry never keeps a class loader alive or outlives its class
+    private static final ClassValue<ClassType> classTypes = new ClassValue<ClassType>() {
+        @Override
+        protected ClassType computeValue(final Class<?> clazz) {
+            // read before the lookup, so that a lookup racing with a clear is not trusted afterwards
+            final int generation = JTypes.generation;
+            final Class<?> enclosingClass = clazz.getEnclosingClass();
+            if (enclosingClass != null) {
+                return new ClassType(typeOf(enclosingClass).nestedType(clazz.getSimpleName()), generation);
+            } else {
+                return new ClassType(typeNamed(clazz.getName()), generation);
+            }
+        }
+    };
+
+    private static final class ClassType {
+        final JType type;
+        final int generation;
+
+        ClassType(final JType type, final int generation) {
+            this.type = type;
+            this.generation = generation;
+        }
+    }
 
     /**
-     * Return a type corresponding to a class with the given name.
+     * Clear the shared type table, invalidating the types cached per class.
+     */
+    static synchronized void clearTypes() {
+        types.clear();
+        generation ++;
+    }
+
+    /**
+     * The process-wide table of named types.  Types are held strongly unless the {@code jdeparser.type-retention}
+     * system property is {@code soft} or {@code weak}.
+     */
+    static final InternTable<String, JType> types = new InternTable<>(InternTable.Retention.fromProperty("jdeparser.type-retention"), JDeparser.Cache.TYPE_NAMES.counters);
+
+    /**
+     * Return a type corresponding to a class with the given name.  The same instance is returned for the same name
+     * from any thread, for as long as it is retained.
      *
      * @param name the class name
      * @return the type
@@ -104,11 +149,10 @@ public final class JTypes {
         if (name.endsWith("[]")) {
             return typeNamed(name.substring(0, name.length() - 2)).array();
         }
-        final LinkedHashMap<String, JType> map = cache.get();
-        JType type = map.get(name);
+        JType type = types.get(name);
         if (type == null) {
             final int idx = name.lastIndexOf('.');
-            map.put(name, type = new ReferenceJType(idx == -1 ? "" : name.substring(0, idx), name.substring(idx + 1)));
+            type = types.intern(name, new ReferenceJType(idx == -1 ? "" : name.substring(0, idx), name.substring(idx + 1)));
         }
         return type;
     }
@@ -120,12 +164,23 @@ public final class JTypes {
      * @return the {@code JType}
      */
     public static JType typeOf(TypeMirror typeMirror) {
+        return convert(typeMirror, JTypes::typeOf);
+    }
+
+    /**
+     * Convert one level of a {@code TypeMirror}, using the given function to convert the types it contains.
+     *
+     * @param typeMirror the type mirror
+     * @param nested the function to convert component, bound, enclosing and argument types
+     * @return the {@code JType}
+     */
+    static JType convert(TypeMirror typeMirror, Function<TypeMirror, JType> nested) {
         if (typeMirror instanceof ArrayType at) {
-            return typeOf(at.getComponentType()).array();
+            return nested.apply(at.getComponentType()).array();
         } else if (typeMirror instanceof WildcardType wildcardType) {
             final TypeMirror extendsBound = wildcardType.getExtendsBound();
             final TypeMirror superBound = wildcardType.getSuperBound();
-            return extendsBound != null ? typeOf(extendsBound).wildcardExtends() : superBound != null ? typeOf(superBound).wildcardSuper() : JType.WILDCARD;
+            return extendsBound != null ? nested.apply(extendsBound).wildcardExtends() : superBound != null ? nested.apply(superBound).wildcardSuper() : JType.WILDCARD;
         } else if (typeMirror instanceof TypeVariable typeVariable) {
             final String name = typeVariable.asElement().getSimpleName().toString();
             return typeNamed(name);
@@ -133,7 +188,7 @@ public final class JTypes {
             final TypeElement typeElement = (TypeElement) declaredType.asElement();
             final TypeMirror enclosingType = declaredType.getEnclosingType();
             if (enclosingType != null && enclosingType.getKind() == TypeKind.DECLARED) {
-                return typeOf(enclosingType).nestedType(typeElement.getSimpleName().toString());
+                return nested.apply(enclosingType).nestedType(typeElement.getSimpleName().toString());
             }
             final String name = typeElement.getQualifiedName().toString();
             final JType rawType = JTypes.typeNamed(name);
@@ -144,7 +199,7 @@ public final class JTypes {
             JType[] args = new JType[typeArguments.size()];
             for (int i = 0; i < typeArguments.size(); i++) {
                 final TypeMirror argument = typeArguments.get(i);
-                args[i] = typeOf(argument);
+                args[i] = nested.apply(argument);
             }
             return rawType.typeArg(args);
         } else if (typeMirror instanceof NoType) {
@@ -0,0 +1,325 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A filer which writes all generated sources into a single ZIP (or JAR) archive, such as a {@code -sources.jar}.
+ * Each entry is compressed as soon as it is written, and only the compressed bytes are kept until the filer is
+ * {@linkplain #close() closed}.  The entries are then written in sorted order with a fixed timestamp so that the same
+ * sources always produce the same archive.  This filer is thread safe.
+ * <p>
+ * Holding the entries until the end is deliberate.  Sources written in parallel arrive in whatever order their
+ * renders finish, so streaming each entry as it arrives would make the entry order, and with it the archive bytes,
+ * vary from run to run.  The cost is that the compressed size of the whole archive is held in memory; sources which
+ * do not fit that budget should be written to a directory instead.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public final class JZipFiler extends JFiler implements Closeable {
+
+    // 1980-02-01 00:00 in MS-DOS format
+    private static final int DOS_DATE = 2 << 5 | 1;
+    private static final int DOS_TIME = 0;
+    // the entry names are always encoded as UTF-8
+    private static final int FLAG_UTF8 = 0x800;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final long ZIP64_MAGIC = 0xffffffffL;
+
+    private final OutputStream os;
+    private final int level;
+    private final TreeMap<String, Entry> entries = new TreeMap<>();
+    private long retained;
+    private boolean closed;
+
+    /**
+     * Construct a new instance using the default compression level.
+     *
+     * @param os the stream to write the archive to, which is closed when this filer is closed
+     */
+    public JZipFiler(final OutputStream os) {
+        this(os, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param os the stream to write the archive to, which is closed when this filer is closed
+     * @param level the compression level, from {@code 0} to {@code 9}, or {@code -1} for the default level
+     */
+    public JZipFiler(final OutputStream os, final int level) {
+        if (os == null) {
+            throw new IllegalArgumentException("os is null");
+        }
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        this.os = os;
+        this.level = level;
+    }
+
+    private static String entryName(final String packageName, final String fileName) {
+        return packageName.isEmpty() ? fileName + ".java" : packageName.replace('.', '/') + '/' + fileName + ".java";
+    }
+
+    private void addEntry(final String name, final byte[] content, final int len) {
+        // compress outside of the lock, so that entries from several threads are compressed concurrently
+        final Entry entry = new Entry(name, content, len, level);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Filer is closed");
+            }
+            final Entry old = entries.put(name, entry);
+            retained += entry.data.length;
+            if (old != null) {
+                retained -= old.data.length;
+            }
+        }
+    }
+
+    /**
+     * Get the number of compressed bytes currently held for entries which are not yet written.
+     *
+     * @return the number of bytes
+     */
+    synchronized long getRetainedBytes() {
+        return retained;
+    }
+
+    @Override
+    public OutputStream openStream(final String packageName, final String fileName) {
+        final String name = entryName(packageName, fileName);
+        return new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                if (buf != null) {
+                    addEntry(name, buf, count);
+                    buf = null;
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    boolean isBuffered() {
+        return true;
+    }
+
+    @Override
+    boolean writeBuffered(final String packageName, final String fileName, final SourceBuffer content) {
+        addEntry(entryName(packageName, fileName), content.getBuffer(), content.size());
+        return true;
+    }
+
+    /**
+     * Write the archive and close the underlying stream.  Closing an already closed filer has no effect.
+     *
+     * @throws IOException if writing the archive fails
+     */
+    @Override
+    public void close() throws IOException {
+        final TreeMap<String, Entry> entries;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            entries = this.entries;
+        }
+        try (ArchiveWriter writer = new ArchiveWriter(os)) {
+            for (Entry entry : entries.values()) {
+                entry.offset = writer.offset;
+                writer.writeLocalHeader(entry);
+                writer.write(entry.data);
+            }
+            final long cdOffset = writer.offset;
+            for (Entry entry : entries.values()) {
+                writer.writeCentralHeader(entry);
+            }
+            writer.writeEnd(entries.size(), cdOffset, writer.offset - cdOffset);
+        } finally {
+            synchronized (this) {
+                entries.clear();
+                retained = 0;
+            }
+        }
+    }
+
+    static final class Entry {
+        final byte[] name;
+        final byte[] data;
+        final long crc;
+        final int size;
+        long offset;
+
+        Entry(final String name, final byte[] content, final int len, final int level) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            size = len;
+            final CRC32 crc32 = new CRC32();
+            crc32.update(content, 0, len);
+            crc = crc32.getValue();
+            final Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(content, 0, len);
+                deflater.finish();
+                // only the compressed bytes are kept, so the buffer grows from a fraction of the input size
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, len >> 2));
+                final byte[] chunk = new byte[Math.min(8192, Math.max(64, len))];
+                while (! deflater.finished()) {
+                    compressed.write(chunk, 0, deflater.deflate(chunk));
+                }
+                data = compressed.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Writes the archive structure, in little-endian byte order.
+     */
+    static final class ArchiveWriter extends BufferedOutputStream {
+        long offset;
+
+        ArchiveWriter(final OutputStream os) {
+            super(os, 8192);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            super.write(b);
+            offset ++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            super.write(b, off, len);
+            offset += len;
+        }
+
+        @Override
+        public void write(final byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        void writeShort(final int v) throws IOException {
+            write(v & 0xff);
+            write(v >>> 8 & 0xff);
+        }
+
+        void writeInt(final long v) throws IOException {
+            writeShort((int) v & 0xffff);
+            writeShort((int) (v >>> 16) & 0xffff);
+        }
+
+        void writeLong(final long v) throws IOException {
+            writeInt(v & 0xffffffffL);
+            writeInt(v >>> 32);
+        }
+
+        void writeLocalHeader(final Entry entry) throws IOException {
+            writeInt(0x04034b50L);
+            writeShort(VERSION);
+            writeShort(FLAG_UTF8);
+            writeShort(METHOD_DEFLATED);
+            writeShort(DOS_TIME);
+            writeShort(DOS_DATE);
+            writeInt(entry.crc);
+            writeInt(entry.data.length);
+            writeInt(entry.size);
+            writeShort(entry.name.length);
+            writeShort(0);
+            write(entry.name);
+        }
+
+        void writeCentralHeader(final Entry entry) throws IOException {
+            final boolean zip64 = entry.offset >= ZIP64_MAGIC;
+            writeInt(0x02014b50L);
+            writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+            writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+            writeShort(FLAG_UTF8);
+            writeShort(METHOD_DEFLATED);
+            writeShort(DOS_TIME);
+            writeShort(DOS_DATE);
+            writeInt(entry.crc);
+            writeInt(entry.data.length);
+            writeInt(entry.size);
+            writeShort(entry.name.length);
+            // the ZIP64 extra field holds only the offset, since the sizes always fit
+            writeShort(zip64 ? 12 : 0);
+            // comment length, disk number, internal and external attributes
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeInt(0);
+            writeInt(zip64 ? ZIP64_MAGIC : entry.offset);
+            write(entry.name);
+            if (zip64) {
+                writeShort(0x0001);
+                writeShort(8);
+                writeLong(entry.offset);
+            }
+        }
+
+        void writeEnd(final int count, final long cdOffset, final long cdSize) throws IOException {
+            if (count >= 0xffff || cdOffset >= ZIP64_MAGIC || cdSize >= ZIP64_MAGIC) {
+                final long zip64End = offset;
+                writeInt(0x06064b50L);
+                writeLong(44);
+                writeShort(VERSION_ZIP64);
+                writeShort(VERSION_ZIP64);
+                writeInt(0);
+                writeInt(0);
+                writeLong(count);
+                writeLong(count);
+                writeLong(cdSize);
+                writeLong(cdOffset);
+                // locator
+                writeInt(0x07064b50L);
+                writeInt(0);
+                writeLong(zip64End);
+                writeInt(1);
+            }
+            writeInt(0x06054b50L);
+            writeShort(0);
+            writeShort(0);
+            writeShort(Math.min(count, 0xffff));
+            writeShort(Math.min(count, 0xffff));
+            writeInt(Math.min(cdSize, ZIP64_MAGIC));
+            writeInt(Math.min(cdOffset, ZIP64_MAGIC));
+            writeShort(0);
+        }
+    }
+}
@@ -27,6 +27,11 @@ import java.io.IOException;
  */
 class KeywordJStatement extends BasicJStatement implements BlockContent {
 
+    // shared instances, which never carry comments; see BasicJBlock#unshare
+    static final KeywordJStatement BREAK = new KeywordJStatement($KW.BREAK);
+    static final KeywordJStatement CONTINUE = new KeywordJStatement($KW.CONTINUE);
+    static final KeywordJStatement RETURN = new KeywordJStatement($KW.RETURN);
+
     private final $KW keyword;
 
     KeywordJStatement($KW keyword) {
@@ -25,23 +25,21 @@ import java.io.IOException;
  */
 class LongJExpr extends AbstractJExpr implements JExpr {
 
-    private final long val;
-    private final int radix;
+    private final String text;
 
     LongJExpr(final long val, final int radix) {
         super(0);
-        this.val = val;
-        this.radix = radix;
+        text = switch (radix) {
+            case 2 -> "0b" + Long.toBinaryString(val) + "L";
+            case 16 -> "0x" + Long.toHexString(val) + "L";
+            default -> Long.toString(val, radix) + "L";
+        };
     }
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
         writer.addWordSpace();
         writer.write(Tokens.$NUMBER);
-        switch (radix) {
-            case 2 -> writer.writeEscaped("0b" + Long.toBinaryString(val) + "L");
-            case 16 -> writer.writeEscaped("0x" + Long.toHexString(val) + "L");
-            default -> writer.writeEscaped(Long.toString(val, radix) + "L");
-        }
+        writer.writeEscaped(text);
     }
 }
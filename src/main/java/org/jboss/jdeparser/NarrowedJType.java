@@ -28,12 +28,38 @@ import java.util.Arrays;
  */
 class NarrowedJType extends AbstractJType {
 
+    /**
+     * The process-wide table of parameterized types and of wildcard types, each under its own kind of key.  Types are
+     * held weakly, since there are arbitrarily many combinations, unless the {@code jdeparser.generic-retention} system
+     * property says otherwise.
+     */
+    static final InternTable<Object, AbstractJType> narrowedTypes = new InternTable<>(InternTable.Retention.fromProperty("jdeparser.generic-retention", InternTable.Retention.WEAK), JDeparser.Cache.GENERIC_TYPES.counters);
+
     private final AbstractJType erased;
     private final JType[] args;
+    private final int hashCode;
 
-    public NarrowedJType(final AbstractJType erased, final JType[] args) {
+    private NarrowedJType(final AbstractJType erased, final JType[] args, final int hashCode) {
         this.erased = erased;
         this.args = args;
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * Get the canonical instance of a parameterized type.
+     *
+     * @param erased the erased type
+     * @param args the type arguments, which are copied if a new instance is created
+     * @return the parameterized type
+     */
+    static NarrowedJType of(final AbstractJType erased, final JType[] args) {
+        final Key key = new Key(erased, args);
+        final AbstractJType existing = narrowedTypes.get(key);
+        if (existing != null) {
+            return (NarrowedJType) existing;
+        }
+        final JType[] copy = args.clone();
+        return (NarrowedJType) narrowedTypes.intern(new Key(erased, copy), new NarrowedJType(erased, copy, key.hashCode));
     }
 
     @Override
@@ -42,12 +68,12 @@ class NarrowedJType extends AbstractJType {
     }
 
     private boolean equals(final NarrowedJType other) {
-        return erased.equals(other.erased) && Arrays.equals(args, other.args);
+        return this == other || hashCode == other.hashCode && erased.equals(other.erased) && Arrays.equals(args, other.args);
     }
 
     @Override
     public int hashCode() {
-        return erased.hashCode() * 17 + Arrays.hashCode(args);
+        return hashCode;
     }
 
     @Override
@@ -86,7 +112,7 @@ class NarrowedJType extends AbstractJType {
 
     @Override
     public JType typeArg(final JType... args) {
-        return new NarrowedJType(erased, concat(this.args, args));
+        return of(erased, concat(this.args, args));
     }
 
     private static JType[] concat(JType[] a, JType[] b) {
@@ -152,4 +178,26 @@ class NarrowedJType extends AbstractJType {
         b.append('>');
         return b.toString();
     }
+
+    static final class Key {
+        private final AbstractJType erased;
+        private final JType[] args;
+        private final int hashCode;
+
+        Key(final AbstractJType erased, final JType[] args) {
+            this.erased = erased;
+            this.args = args;
+            hashCode = erased.hashCode() * 17 + Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key key && hashCode == key.hashCode && erased.equals(key.erased) && Arrays.equals(args, key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
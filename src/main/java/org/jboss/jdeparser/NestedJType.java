@@ -102,20 +102,17 @@ class NestedJType extends AbstractJType {
 
     @Override
     public JType typeArg(final JType... args) {
-        return new NarrowedJType(this, args);
+        return NarrowedJType.of(this, args);
     }
 
     @Override
-    public JType nestedType(final String name) {
+    public synchronized JType nestedType(final String name) {
         CachingLinkedHashMap<String, NestedJType> nestedTypes = this.nestedTypes;
         if (nestedTypes == null) {
-            nestedTypes = this.nestedTypes = new CachingLinkedHashMap<>();
+            nestedTypes = this.nestedTypes = new CachingLinkedHashMap<>(JDeparser.Cache.NESTED_TYPES.counters);
         }
-        NestedJType nestedType = nestedTypes.get(name);
-        if (nestedType == null) {
-            nestedTypes.put(name, nestedType = new NestedJType(this, name));
-        }
-        return nestedType;
+        final NestedJType nestedType = nestedTypes.lookup(name);
+        return nestedType != null ? nestedType : nestedTypes.store(name, new NestedJType(this, name));
     }
 
     @Override
@@ -125,7 +122,7 @@ class NestedJType extends AbstractJType {
 
     @Override
     void writeDirect(final SourceFileWriter writer) throws IOException {
-        if (! writer.getClassFile().hasStaticImport(name, enclosingType) && ! writer.getClassFile().hasImport(this)) {
+        if (writer.isQualifiedNames() || ! writer.getClassFile().hasStaticImport(name, enclosingType) && ! writer.getClassFile().hasImport(this)) {
             enclosingType.writeDirect(writer);
             writer.write($PUNCT.DOT);
         }
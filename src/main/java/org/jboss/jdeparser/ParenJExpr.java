@@ -40,6 +40,10 @@ class ParenJExpr extends AbstractJExpr {
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
+        write(writer, expr);
+    }
+
+    static void write(final SourceFileWriter writer, final AbstractJExpr expr) throws IOException {
         writer.write($PUNCT.PAREN.OPEN);
         writer.write(FormatPreferences.Space.WITHIN_PAREN_EXPR);
         writer.write(expr);
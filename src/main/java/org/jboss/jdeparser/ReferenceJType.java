@@ -28,6 +28,7 @@ class ReferenceJType extends AbstractJType {
     private final PrimitiveJType unboxed;
     private final String packageName;
     private final String simpleName;
+    private String qualifiedName;
     private StaticRefJExpr classExpr;
     private StaticRefJExpr thisExpr;
     private StaticRefJExpr superExpr;
@@ -53,12 +54,17 @@ class ReferenceJType extends AbstractJType {
         throw new IllegalArgumentException("Expected a reference type");
     }
 
+    String getPackageName() {
+        return packageName;
+    }
+
     @Override
     String qualifiedName() {
-        if (packageName.isEmpty()) {
-            return simpleName;
+        String qualifiedName = this.qualifiedName;
+        if (qualifiedName == null) {
+            qualifiedName = this.qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
         }
-        return packageName + "." + simpleName;
+        return qualifiedName;
     }
 
     @Override
@@ -110,40 +116,46 @@ class ReferenceJType extends AbstractJType {
 
     @Override
     void writeDirect(final SourceFileWriter sourceFileWriter) throws IOException {
-        final ImplJSourceFile cf = sourceFileWriter.getClassFile();
+        sourceFileWriter.writeClass(sourceFileWriter.isQualifiedNames() ? qualifiedName() : sourceFileWriter.getClassFile().typeName(this));
+    }
+
+    /**
+     * Determine how this type is written in the given file.  The result is cached by the file.
+     *
+     * @param cf the source file
+     * @return the simple or qualified name to write
+     */
+    String resolveName(final ImplJSourceFile cf) {
         final String currentPackageName = cf.getPackageName();
         final boolean packageMatches = currentPackageName.equals(packageName);
         if (packageMatches && cf.hasImport(simpleName())) {
             // an explicit import masks the implicit import
-            sourceFileWriter.writeClass(qualifiedName());
-        } else if (packageName.equals("java.lang") && ! sourceFileWriter.getClassFile().getSources().hasClass(currentPackageName + "." + simpleName()) || packageMatches) {
+            return qualifiedName();
+        } else if (packageName.equals("java.lang") && ! cf.getSources().hasClass(currentPackageName + "." + simpleName()) || packageMatches) {
             // implicit import
-            sourceFileWriter.writeClass(simpleName());
+            return simpleName();
         } else if (cf.hasImport(this)) {
             // explicit import
-            sourceFileWriter.writeClass(simpleName());
+            return simpleName();
         } else {
-            sourceFileWriter.writeClass(qualifiedName());
+            return qualifiedName();
         }
     }
 
     @Override
     public JType typeArg(final JType... args) {
         if (unboxed != null) return super.typeArg(args);
-        return new NarrowedJType(this, args);
+        return NarrowedJType.of(this, args);
     }
 
     @Override
-    public JType nestedType(final String name) {
+    public synchronized JType nestedType(final String name) {
         CachingLinkedHashMap<String, NestedJType> nestedTypes = this.nestedTypes;
         if (nestedTypes == null) {
-            nestedTypes = this.nestedTypes = new CachingLinkedHashMap<>();
-        }
-        NestedJType nestedType = nestedTypes.get(name);
-        if (nestedType == null) {
-            nestedTypes.put(name, nestedType = new NestedJType(this, name));
+            nestedTypes = this.nestedTypes = new CachingLinkedHashMap<>(JDeparser.Cache.NESTED_TYPES.counters);
         }
-        return nestedType;
+        final NestedJType nestedType = nestedTypes.lookup(name);
+        return nestedType != null ? nestedType : nestedTypes.store(name, new NestedJType(this, name));
     }
 
     @Override
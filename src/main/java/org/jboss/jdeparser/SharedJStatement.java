@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+/**
+ * The handle for a shared stateless statement within a block.  The shared instance stays in the block unless a
+ * comment is added, in which case it is replaced by a private copy which receives the comment.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+final class SharedJStatement implements JStatement {
+
+    private final BasicJBlock block;
+    private final int idx;
+    private BasicJStatement statement;
+
+    SharedJStatement(final BasicJBlock block, final int idx) {
+        this.block = block;
+        this.idx = idx;
+    }
+
+    private BasicJStatement statement() {
+        BasicJStatement statement = this.statement;
+        if (statement == null) {
+            statement = this.statement = block.unshare(idx);
+        }
+        return statement;
+    }
+
+    @Override
+    public JComment lineComment() {
+        return statement().lineComment();
+    }
+
+    @Override
+    public JComment blockComment() {
+        return statement().blockComment();
+    }
+}
@@ -18,14 +18,25 @@
 
 package org.jboss.jdeparser;
 
-import java.util.LinkedHashMap;
+import java.io.ByteArrayOutputStream;
 
 /**
+ * A byte buffer holding a completely rendered source file.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
-class CachingThreadLocal<K, V> extends ThreadLocal<LinkedHashMap<K, V>> {
-    @Override
-    protected LinkedHashMap<K, V> initialValue() {
-        return new CachingLinkedHashMap<>();
+final class SourceBuffer extends ByteArrayOutputStream {
+
+    SourceBuffer() {
+        super(8192);
+    }
+
+    /**
+     * Get the backing array.  Only the first {@link #size()} bytes are valid.
+     *
+     * @return the backing array
+     */
+    byte[] getBuffer() {
+        return buf;
     }
 }
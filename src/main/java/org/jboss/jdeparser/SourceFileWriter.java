@@ -33,14 +33,23 @@ import java.util.ListIterator;
  */
 class SourceFileWriter implements Flushable, Closeable {
 
-    private final FormatPreferences format;
-    private final CountingWriter countingWriter;
+    private FormatPreferences format;
+    private CountingWriter countingWriter;
     private final StringBuilder lineBuffer = new StringBuilder();
     private final String lineSep;
     private final ArrayDeque<AbstractJType> thisTypeStack = new ArrayDeque<>();
     @SuppressWarnings("MismatchedQueryAndUpdateOfCollection") // IDEA bug http://youtrack.jetbrains.com/issue/IDEA-128168
     private final ArrayList<Indent> indentStack = new ArrayList<>();
     private final ListIterator<Indent> stackIterator = indentStack.listIterator(0);
+    // indentPrefixes[i] is the complete prefix for a stack whose bottom i + 1 entries are prefixIndents[0..i]
+    private final ArrayList<ConfigIndent> prefixIndents = new ArrayList<>();
+    private final ArrayList<String> indentPrefixes = new ArrayList<>();
+    // the number of stacked indents which are not a ConfigIndent, and so must go through the chain; every such indent
+    // may escape or add dynamic content, whereas a ConfigIndent only ever adds spaces
+    private int dynamicIndents;
+    private boolean qualifiedNames;
+    // true while only the referenced types are being collected, in which case nothing is formatted or written
+    private boolean collecting;
     private final Indent nextIndent = new Indent() {
 
         @Override
@@ -89,14 +98,113 @@ class SourceFileWriter implements Flushable, Closeable {
     private static final int SS_NEW_LINE = 3;
     private static final int SS_2_NEW_LINE = 4;
 
+    private static final int MAX_RETAINED_LINE = 1 << 16;
+
     SourceFileWriter(final FormatPreferences format, final Writer writer) {
+        this(format, new CountingWriter(writer));
+    }
+
+    SourceFileWriter(final FormatPreferences format, final CountingWriter countingWriter) {
         this.format = format;
-        this.countingWriter = new CountingWriter(writer);
+        this.countingWriter = countingWriter;
+        qualifiedNames = format != null && format.hasOption(FormatPreferences.Opt.QUALIFIED_NAMES);
         // todo use preferences/config
         lineSep = System.lineSeparator();
     }
 
+    /**
+     * Construct a new instance for reuse; {@link #open(FormatPreferences, CountingWriter)} must be called before
+     * writing.
+     */
+    SourceFileWriter() {
+        this(null, null);
+    }
+
+    /**
+     * Start writing a new file to the given writer.  The writer must have been {@linkplain #reset(boolean) reset}
+     * since it was last used.
+     *
+     * @param format the formatting preferences
+     * @param countingWriter the counting writer to write to
+     */
+    void open(final FormatPreferences format, final CountingWriter countingWriter) {
+        this.format = format;
+        this.countingWriter = countingWriter;
+        qualifiedNames = format.hasOption(FormatPreferences.Opt.QUALIFIED_NAMES);
+        // the preferences may have been changed since the prefixes were computed
+        prefixIndents.clear();
+        indentPrefixes.clear();
+    }
+
+    /**
+     * Start walking a file only to find the types it references.  Until this writer is
+     * {@linkplain #reset(boolean) reset}, type names are still resolved through the source file, but no spacing,
+     * indentation, escaping or output is done.  The writer must have been reset since it was last used.
+     *
+     * @param format the formatting preferences
+     */
+    void openForImports(final FormatPreferences format) {
+        this.format = format;
+        qualifiedNames = format.hasOption(FormatPreferences.Opt.QUALIFIED_NAMES);
+        collecting = true;
+    }
+
+    /**
+     * Get the current (or most recently used) counting writer, so that its buffer may be recycled.
+     *
+     * @return the counting writer, or {@code null} if none was used yet
+     */
+    CountingWriter getCountingWriter() {
+        return countingWriter;
+    }
+
+    /**
+     * Discard all per-file state so that this writer can be reused for another file.  The grown line buffer and
+     * stacks are retained, unless the line buffer has become very large.
+     *
+     * @param check {@code true} to report any state left behind by a file which was written successfully
+     * @throws IllegalStateException if {@code check} is {@code true} and state was leaked; the writer is reset regardless
+     */
+    void reset(final boolean check) {
+        String leaked = null;
+        if (check) {
+            if (! indentStack.isEmpty()) {
+                leaked = "indentation " + indentStack;
+            } else if (! thisTypeStack.isEmpty()) {
+                leaked = "enclosing type " + thisTypeStack.peek();
+            } else if (lineBuffer.length() > 0) {
+                leaked = "unwritten line \"" + lineBuffer + "\"";
+            } else if (classFile != null) {
+                leaked = "source file " + classFile.getFileName();
+            }
+        }
+        while (stackIterator.hasNext()) {
+            stackIterator.next();
+        }
+        while (stackIterator.hasPrevious()) {
+            stackIterator.previous();
+            stackIterator.remove();
+        }
+        dynamicIndents = 0;
+        thisTypeStack.clear();
+        lineBuffer.setLength(0);
+        if (lineBuffer.capacity() > MAX_RETAINED_LINE) {
+            lineBuffer.trimToSize();
+        }
+        state = $START;
+        spaceState = SS_NONE;
+        classFile = null;
+        format = null;
+        collecting = false;
+        if (leaked != null) {
+            throw new IllegalStateException("Source file writer was reset with leaked state: " + leaked);
+        }
+    }
+
     void nl() throws IOException {
+        if (collecting) {
+            return;
+        }
         countingWriter.write(lineBuffer);
         countingWriter.write(lineSep);
         lineBuffer.setLength(0);
@@ -109,6 +217,9 @@ class SourceFileWriter implements Flushable, Closeable {
      * @throws IOException etc.
      */
     void sp() throws IOException {
+        if (collecting) {
+            return;
+        }
         if (spaceState == SS_NEW_LINE || spaceState == SS_2_NEW_LINE) {
             addIndent();
         } else if (spaceState != SS_ADDED) {
@@ -128,14 +239,13 @@ class SourceFileWriter implements Flushable, Closeable {
         return countingWriter.getLine();
     }
 
-    int getColumn() {
-        return countingWriter.getColumn();
-    }
-
     void processSpacing() throws IOException {
+        if (collecting) {
+            return;
+        }
         switch (spaceState) {
             case SS_2_NEW_LINE, SS_NEW_LINE -> {
-                nextIndent.addIndent(nextIndent, format, lineBuffer);
+                indent();
                 spaceState = SS_ADDED;
             }
             case SS_NEEDED -> sp();
@@ -144,39 +254,99 @@ class SourceFileWriter implements Flushable, Closeable {
 
     void addIndent() throws IOException {
         assert spaceState == SS_NEW_LINE || spaceState == SS_2_NEW_LINE; // it was a new line
-        nextIndent.addIndent(nextIndent, format, lineBuffer);
+        indent();
         spaceState = SS_ADDED;
     }
 
+    private void indent() {
+        if (dynamicIndents == 0) {
+            lineBuffer.append(getIndentPrefix());
+        } else {
+            nextIndent.addIndent(nextIndent, format, lineBuffer);
+        }
+    }
+
+    private String getIndentPrefix() {
+        final int depth = indentStack.size();
+        if (depth == 0) {
+            return "";
+        }
+        final ArrayList<String> indentPrefixes = this.indentPrefixes;
+        int cnt = indentPrefixes.size();
+        if (cnt < depth) {
+            String prefix = cnt == 0 ? "" : indentPrefixes.get(cnt - 1);
+            ConfigIndent indent;
+            do {
+                indent = (ConfigIndent) indentStack.get(cnt);
+                prefix = indent.getPrefix(prefix, format);
+                prefixIndents.add(indent);
+                indentPrefixes.add(prefix);
+            } while (++ cnt < depth);
+        }
+        return indentPrefixes.get(depth - 1);
+    }
+
     void writeEscaped(String item) throws IOException {
+        if (collecting) {
+            return;
+        }
         processSpacing();
-        final int idx = lineBuffer.length();
-        lineBuffer.append(item);
-        nextIndent.escape(nextIndent, lineBuffer, idx);
+        if (dynamicIndents == 0) {
+            // configured indents never escape anything
+            lineBuffer.append(item);
+        } else {
+            final int idx = lineBuffer.length();
+            lineBuffer.append(item);
+            nextIndent.escape(nextIndent, lineBuffer, idx);
+        }
         spaceState = SS_NONE;
     }
 
     void writeEscaped(final char item) throws IOException {
+        if (collecting) {
+            return;
+        }
         processSpacing();
-        final int idx = lineBuffer.length();
-        lineBuffer.append(item);
-        nextIndent.escape(nextIndent, lineBuffer, idx);
+        if (dynamicIndents == 0) {
+            // configured indents never escape anything
+            lineBuffer.append(item);
+        } else {
+            final int idx = lineBuffer.length();
+            lineBuffer.append(item);
+            nextIndent.escape(nextIndent, lineBuffer, idx);
+        }
         spaceState = SS_NONE;
     }
 
     void writeUnescaped(String item) throws IOException {
+        if (collecting) {
+            return;
+        }
         processSpacing();
-        final int idx = lineBuffer.length();
-        lineBuffer.append(item);
-        nextIndent.unescaped(nextIndent, lineBuffer, idx);
+        if (dynamicIndents == 0) {
+            // configured indents never escape anything
+            lineBuffer.append(item);
+        } else {
+            final int idx = lineBuffer.length();
+            lineBuffer.append(item);
+            nextIndent.unescaped(nextIndent, lineBuffer, idx);
+        }
         spaceState = SS_NONE;
     }
 
     void writeUnescaped(char item) throws IOException {
+        if (collecting) {
+            return;
+        }
         processSpacing();
-        final int idx = lineBuffer.length();
-        lineBuffer.append(item);
-        nextIndent.unescaped(nextIndent, lineBuffer, idx);
+        if (dynamicIndents == 0) {
+            // configured indents never escape anything
+            lineBuffer.append(item);
+        } else {
+            final int idx = lineBuffer.length();
+            lineBuffer.append(item);
+            nextIndent.unescaped(nextIndent, lineBuffer, idx);
+        }
         spaceState = SS_NONE;
     }
 
@@ -211,6 +381,10 @@ class SourceFileWriter implements Flushable, Closeable {
     }
 
     void write(final Token state) throws IOException {
+        if (collecting) {
+            this.state = state;
+            return;
+        }
         processSpacing();
         state.write(this);
         this.state = state;
@@ -248,12 +422,39 @@ class SourceFileWriter implements Flushable, Closeable {
         if (expr != null) expr.write(this);
     }
 
+    /**
+     * Write an operand, in parentheses if it binds less tightly than the expression which contains it.  Parentheses
+     * are decided here rather than when the model is built, so that no wrapper objects are retained.
+     *
+     * @param expr the operand
+     * @param prec the precedence of the containing expression
+     * @throws IOException if a write fails
+     */
+    void write(final AbstractJExpr expr, final int prec) throws IOException {
+        if (expr.prec() > prec) {
+            ParenJExpr.write(this, expr);
+        } else {
+            expr.write(this);
+        }
+    }
+
     void pushIndent(FormatPreferences.Indentation indentation) {
         pushIndent(indentation.getIndent());
     }
 
     void pushIndent(Indent indent) {
+        final int depth = indentStack.size();
         stackIterator.add(indent);
+        final ArrayList<ConfigIndent> prefixIndents = this.prefixIndents;
+        final int cnt = prefixIndents.size();
+        if (cnt > depth && prefixIndents.get(depth) != indent) {
+            // computed for a different stack; the levels below still match
+            prefixIndents.subList(depth, cnt).clear();
+            indentPrefixes.subList(depth, cnt).clear();
+        }
+        if (! (indent instanceof ConfigIndent)) {
+            dynamicIndents ++;
+        }
     }
 
     void popIndent(FormatPreferences.Indentation indentation) {
@@ -264,6 +465,9 @@ class SourceFileWriter implements Flushable, Closeable {
         final Indent pop = stackIterator.previous();
         stackIterator.remove();
         assert pop == indent;
+        if (! (pop instanceof ConfigIndent)) {
+            dynamicIndents --;
+        }
     }
 
     AbstractJType getThisType() {
@@ -294,4 +498,13 @@ class SourceFileWriter implements Flushable, Closeable {
     FormatPreferences getFormat() {
         return format;
     }
+
+    /**
+     * Determine whether all type names are written qualified, disregarding imports.
+     *
+     * @return {@code true} if the {@link FormatPreferences.Opt#QUALIFIED_NAMES} option was set when this file was opened
+     */
+    boolean isQualifiedNames() {
+        return qualifiedNames;
+    }
 }
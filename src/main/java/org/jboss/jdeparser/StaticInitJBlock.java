@@ -27,8 +27,8 @@ import java.io.IOException;
  */
 class StaticInitJBlock extends BasicJBlock implements ClassContent {
 
-    StaticInitJBlock() {
-        super(null, Braces.REQUIRED);
+    StaticInitJBlock(final ImplJSourceFile classFile) {
+        super(null, Braces.REQUIRED, classFile);
     }
 
     @Override
@@ -40,7 +40,7 @@ class StaticJCall extends AbstractMethodJCall {
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        if (! writer.getClassFile().hasStaticImport(getName(), type)) {
+        if (writer.isQualifiedNames() || ! writer.getClassFile().hasStaticImport(getName(), type)) {
             type.writeDirect(writer);
             writer.write($PUNCT.DOT);
         }
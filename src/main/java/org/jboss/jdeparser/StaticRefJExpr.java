@@ -52,7 +52,7 @@ class StaticRefJExpr extends AbstractJAssignableExpr {
 
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
-        if (! writer.getClassFile().hasStaticImport(refName, type)) {
+        if (writer.isQualifiedNames() || ! writer.getClassFile().hasStaticImport(refName, type)) {
             type.writeDirect(writer);
             writer.write($PUNCT.DOT);
         }
@@ -32,6 +32,29 @@ class StringJExpr extends AbstractJExpr {
         this.val = val;
     }
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // the escape sequence for each character below 0xA0, or null if it is written as-is
+    private static final String[] ESCAPES = new String[0xA0];
+
+    static {
+        final StringBuilder b = new StringBuilder(6);
+        for (int i = 0; i < 0xA0; i ++) {
+            if (i < 0x20 || i >= 0x7F) {
+                b.setLength(0);
+                appendUnicodeEscape(b, (char) i);
+                ESCAPES[i] = b.toString();
+            }
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\f'] = "\\f";
+    }
+
     static final Indent ESC = new Indent() {
         @Override
         public void addIndent(final Indent next, final FormatPreferences preferences, final StringBuilder lineBuffer) {
@@ -41,41 +64,12 @@ class StringJExpr extends AbstractJExpr {
 
         @Override
         public void escape(final Indent next, final StringBuilder b, final int idx) {
-            char c;
-            int i = idx;
-            while (i < b.length()) {
-                c = b.charAt(i);
-                switch (c) {
-                    case '"', '\\' -> {
-                        b.insert(i, '\\');
-                        i += 2;
-                    }
-                    case '\n' -> {
-                        b.replace(i, i + 1, "\\n");
-                        i += 2;
-                    }
-                    case '\r' -> {
-                        b.replace(i, i + 1, "\\r");
-                        i += 2;
-                    }
-                    case '\t' -> {
-                        b.replace(i, i + 1, "\\t");
-                        i += 2;
-                    }
-                    case '\b' -> {
-                        b.replace(i, i + 1, "\\b");
-                        i += 2;
-                    }
-                    case '\f' -> {
-                        b.replace(i, i + 1, "\\f");
-                        i += 2;
-                    }
-                    case 0 -> {
-                        b.replace(i, i + 1, "\\0");
-                        i += 2;
-                    }
-                    default -> i++;
-                }
+            final int first = firstEscape(b, idx);
+            if (first != -1) {
+                // move the remainder aside and stream it back in escaped form
+                final String rest = b.substring(first);
+                b.setLength(first);
+                appendEscaped(b, rest);
             }
         }
 
@@ -86,6 +80,65 @@ class StringJExpr extends AbstractJExpr {
         }
     };
 
+    private static void appendUnicodeEscape(final StringBuilder b, final char c) {
+        b.append('\\').append('u').append(HEX[c >> 12]).append(HEX[c >> 8 & 0xf]).append(HEX[c >> 4 & 0xf]).append(HEX[c & 0xf]);
+    }
+
+    /**
+     * Get the number of characters at the given position which can be written without escaping.
+     *
+     * @param s the characters
+     * @param i the position
+     * @return 1, or 2 for a valid surrogate pair, or 0 if the character must be escaped
+     */
+    private static int plainLength(final CharSequence s, final int i) {
+        final char c = s.charAt(i);
+        if (c < 0xA0) {
+            return ESCAPES[c] == null ? 1 : 0;
+        }
+        if (Character.isHighSurrogate(c)) {
+            return i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)) ? 2 : 0;
+        }
+        // a fixed set, so that the output does not depend on the Unicode version of the JDK: unpaired low surrogates,
+        // invisible and bidirectional formatting characters, line and paragraph separators, and the byte order mark
+        return Character.isLowSurrogate(c) || c >= 0x200B && c <= 0x200F || c >= 0x2028 && c <= 0x202E
+            || c >= 0x2060 && c <= 0x206F || c == 0xFEFF ? 0 : 1;
+    }
+
+    private static int firstEscape(final CharSequence s, final int start) {
+        final int len = s.length();
+        int n;
+        for (int i = start; i < len; i += n) {
+            n = plainLength(s, i);
+            if (n == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendEscaped(final StringBuilder b, final String s) {
+        final int len = s.length();
+        int run = 0;
+        int n;
+        char c;
+        for (int i = 0; i < len; i += n) {
+            n = plainLength(s, i);
+            if (n == 0) {
+                b.append(s, run, i);
+                c = s.charAt(i);
+                if (c < 0xA0) {
+                    b.append(ESCAPES[c]);
+                } else {
+                    appendUnicodeEscape(b, c);
+                }
+                n = 1;
+                run = i + 1;
+            }
+        }
+        b.append(s, run, len);
+    }
+
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
         writer.addWordSpace();
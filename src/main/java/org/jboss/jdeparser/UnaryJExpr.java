@@ -42,7 +42,7 @@ class UnaryJExpr extends AbstractJExpr {
     UnaryJExpr(final $PUNCT.UNOP op, final AbstractJExpr expr, final int prec, boolean postfix) {
         super(prec);
         this.op = op;
-        this.expr = expr.prec() > prec ? new ParenJExpr(expr) : expr;
+        this.expr = expr;
         this.postfix = postfix;
     }
 
@@ -57,13 +57,13 @@ class UnaryJExpr extends AbstractJExpr {
     @Override
     public void write(final SourceFileWriter writer) throws IOException {
         if (isPostfix()) {
-            writer.write(expr);
+            writer.write(expr, prec());
             writer.write(FormatPreferences.Space.AT_UNARY);
             writer.write(op);
         } else {
             writer.write(op);
             writer.write(FormatPreferences.Space.AT_UNARY);
-            writer.write(expr);
+            writer.write(expr, prec());
         }
     }
 }
@@ -29,10 +29,29 @@ class WildcardJType extends AbstractJType {
 
     private final AbstractJType targetType;
     private final boolean extendsNotSuper;
+    private final int hashCode;
 
-    public WildcardJType(final AbstractJType targetType, final boolean extendsNotSuper) {
+    private WildcardJType(final AbstractJType targetType, final boolean extendsNotSuper, final int hashCode) {
         this.targetType = targetType;
         this.extendsNotSuper = extendsNotSuper;
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * Get the canonical instance of a wildcard type.  Wildcards share the table of parameterized types, whose
+     * arguments they usually are.
+     *
+     * @param targetType the bound
+     * @param extendsNotSuper {@code true} for an upper bound, {@code false} for a lower bound
+     * @return the wildcard type
+     */
+    static WildcardJType of(final AbstractJType targetType, final boolean extendsNotSuper) {
+        final Key key = new Key(targetType, extendsNotSuper);
+        final AbstractJType existing = NarrowedJType.narrowedTypes.get(key);
+        if (existing != null) {
+            return (WildcardJType) existing;
+        }
+        return (WildcardJType) NarrowedJType.narrowedTypes.intern(key, new WildcardJType(targetType, extendsNotSuper, key.hashCode));
     }
 
     @Override
@@ -41,12 +60,12 @@ class WildcardJType extends AbstractJType {
     }
 
     private boolean equals(final WildcardJType other) {
-        return extendsNotSuper == other.extendsNotSuper && targetType.equals(other.targetType);
+        return this == other || hashCode == other.hashCode && extendsNotSuper == other.extendsNotSuper && targetType.equals(other.targetType);
     }
 
     @Override
     public int hashCode() {
-        return targetType.hashCode() ^ (extendsNotSuper ? 0 : 1);
+        return hashCode;
     }
 
     @Override
@@ -98,4 +117,27 @@ class WildcardJType extends AbstractJType {
     boolean isExtendsNotSuper() {
         return extendsNotSuper;
     }
+
+    static final class Key {
+        private final AbstractJType targetType;
+        private final boolean extendsNotSuper;
+        private final int hashCode;
+
+        Key(final AbstractJType targetType, final boolean extendsNotSuper) {
+            this.targetType = targetType;
+            this.extendsNotSuper = extendsNotSuper;
+            hashCode = targetType.hashCode() ^ (extendsNotSuper ? 0 : 1);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key key && hashCode == key.hashCode && extendsNotSuper == key.extendsNotSuper
+                && targetType.equals(key.targetType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.jboss.jdeparser.JMod.STATIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class AutoImportsTestCase {
+
+    @Test
+    public void testAutoImports() throws IOException {
+        final FormatPreferences format = new FormatPreferences(new Properties());
+        format.addOption(FormatPreferences.Opt.AUTO_IMPORTS);
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), format);
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        sourceFile._import("java.util.Set");
+        final JClassDef foo = sourceFile._class(PUBLIC, "Foo");
+        foo._class(PUBLIC | STATIC, "Builder");
+        foo.field(PUBLIC, JTypes.typeNamed("java.util.List"), "a");
+        foo.field(PUBLIC, JTypes.typeNamed("java.util.List"), "b");
+        foo.field(PUBLIC, JTypes.typeNamed("java.awt.List"), "c");
+        foo.field(PUBLIC, String.class, "d");
+        foo.field(PUBLIC, JTypes.typeNamed("org.foo.bar.Helper"), "e");
+        foo.field(PUBLIC, JTypes.typeNamed("java.util.Map").nestedType("Entry"), "f");
+        foo.field(PUBLIC, JTypes.typeNamed("org.other.Builder"), "g");
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        final String source = b.toString();
+
+        assertTrue(source.contains("import java.util.List;"), source);
+        assertTrue(source.contains("import java.util.Map;"), source);
+        assertFalse(source.contains("import java.util.Set;"), source);
+        assertFalse(source.contains("import java.awt"), source);
+        assertFalse(source.contains("import java.lang"), source);
+        assertFalse(source.contains("import org."), source);
+        assertTrue(source.contains("public List a;"), source);
+        assertTrue(source.contains("public java.awt.List c;"), source);
+        assertTrue(source.contains("public String d;"), source);
+        assertTrue(source.contains("public Helper e;"), source);
+        assertTrue(source.contains("public Map.Entry f;"), source);
+        assertTrue(source.contains("public org.other.Builder g;"), source);
+
+        // the result is stable across writes
+        final StringBuilder b2 = new StringBuilder();
+        sourceFile.writeTo(b2);
+        assertEquals(source, b2.toString());
+    }
+
+    @Test
+    public void testUnusedStaticImports() throws IOException {
+        final FormatPreferences format = new FormatPreferences(new Properties());
+        format.addOption(FormatPreferences.Opt.AUTO_IMPORTS);
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), format);
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        sourceFile.importStatic(List.class, "of");
+        sourceFile.importStatic(Collections.class, "emptyList");
+        final JClassDef foo = sourceFile._class(PUBLIC, "Foo");
+        foo.method(PUBLIC, List.class, "list").body()._return(JTypes.typeOf(List.class).call("of"));
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        final String source = b.toString();
+
+        assertTrue(source.contains("import static java.util.List.of;"), source);
+        assertFalse(source.contains("emptyList"), source);
+        assertTrue(source.contains("return of();"), source);
+    }
+
+    @Test
+    public void testQualifiedNames() throws IOException {
+        final FormatPreferences format = new FormatPreferences(new Properties());
+        format.addOption(FormatPreferences.Opt.AUTO_IMPORTS, FormatPreferences.Opt.QUALIFIED_NAMES);
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), format);
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        sourceFile._import("java.util.List");
+        sourceFile.importStatic("java.util.Collections", "emptyList");
+        final JClassDef foo = sourceFile._class(PUBLIC, "Foo");
+        foo.field(PUBLIC, JTypes.typeNamed("java.util.List"), "a", JTypes.typeNamed("java.util.Collections").call("emptyList"));
+        foo.field(PUBLIC, String.class, "b");
+        foo.field(PUBLIC, JTypes.typeNamed("org.foo.bar.Helper"), "c");
+        foo.field(PUBLIC, JTypes.typeNamed("java.util.Map").nestedType("Entry"), "d");
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        final String source = b.toString();
+
+        assertFalse(source.contains("import"), source);
+        assertTrue(source.contains("public java.util.List a = java.util.Collections.emptyList();"), source);
+        assertTrue(source.contains("public java.lang.String b;"), source);
+        assertTrue(source.contains("public org.foo.bar.Helper c;"), source);
+        assertTrue(source.contains("public java.util.Map.Entry d;"), source);
+    }
+}
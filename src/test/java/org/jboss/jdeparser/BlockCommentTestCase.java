@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class BlockCommentTestCase {
+
+    private static String render(String text, boolean doc) throws IOException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        final JClassDef classDef = sourceFile._class(PUBLIC, "Foo");
+        (doc ? classDef.docComment() : classDef.blockComment()).text(text);
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        return b.toString();
+    }
+
+    private static int count(String str, String find) {
+        int cnt = 0;
+        for (int i = str.indexOf(find); i != -1; i = str.indexOf(find, i + 1)) {
+            cnt ++;
+        }
+        return cnt;
+    }
+
+    @Test
+    public void testTerminatorEscaped() throws IOException {
+        final String rendered = render("ends */ here, **/ and */*/ again", false);
+        assertEquals(1, count(rendered, "*/"));
+        assertTrue(rendered.contains("ends *\u200D/ here, **\u200D/ and *\u200D/*\u200D/ again"), rendered);
+        assertEquals(1, count(render("see a/*/b", true), "*/"));
+    }
+
+    @Test
+    public void testLargeComment() {
+        final StringBuilder b = new StringBuilder();
+        while (b.length() < 2 << 20) {
+            b.append("matches path/**/*.java */ ");
+        }
+        final String text = b.toString();
+        for (boolean doc : new boolean[] { false, true }) {
+            // the old escaping was quadratic (and did not terminate) at this size
+            final String rendered = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> render(text, doc));
+            assertEquals(1, count(rendered, "*/"));
+            assertEquals(count(text, "*/"), count(rendered, "\u200D"));
+        }
+    }
+
+    @Test
+    public void testEscapingScope() throws IOException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        final JClassDef classDef = sourceFile._class(PUBLIC, "Foo");
+        classDef.blockComment().text("block */ \"quoted\"");
+        final JBlock body = classDef.method(PUBLIC, String.class, "value").body();
+        body.lineComment().text("line */ \"quoted\"");
+        body._return(JExprs.str("string */ \"quoted\""));
+        classDef.field(PUBLIC, String.class, "after", JExprs.str("*/"));
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        final String rendered = b.toString();
+        // each escaping indent only applies while it is active
+        assertTrue(rendered.contains(" * block *\u200D/ \"quoted\""), rendered);
+        assertTrue(rendered.contains("// line */ \"quoted\""), rendered);
+        assertTrue(rendered.contains("return \"string */ \\\"quoted\\\"\";"), rendered);
+        assertTrue(rendered.contains("after = \"*/\";"), rendered);
+        assertEquals(1, count(rendered, "\u200D"));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class ByteCountingWriterTestCase {
+
+    private static final String MIXED = "aé€😀\nЖ\uDBFF\uDFFFz\n";
+
+    private static final JFiler FILER = new JFiler() {
+        public OutputStream openStream(final String packageName, final String fileName) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static byte[] encode(final CountingWriter writer, final ByteArrayOutputStream os, final String str) throws IOException {
+        // exercise every write path, splitting surrogate pairs across calls
+        final int third = str.length() / 3;
+        writer.write(str, 0, third);
+        writer.write(new StringBuilder(str), third, third);
+        writer.write(str.substring(2 * third).toCharArray());
+        writer.close();
+        return os.toByteArray();
+    }
+
+    @Test
+    public void testUtf8MatchesEncoder() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final CountingWriter writer = FILER.newCountingWriter(os, null);
+        final byte[] bytes = encode(writer, os, MIXED);
+        assertArrayEquals(MIXED.getBytes(StandardCharsets.UTF_8), bytes);
+        // 1 + 2 + 3 + 4 + 1 + 2 + 4 + 1 + 1
+        assertEquals(19, bytes.length);
+        assertEquals(3, writer.getLine());
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws IOException {
+        final String str = "x\uD800y\uDC00z\uD83D😀\uDBFF";
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final byte[] bytes = encode(FILER.newCountingWriter(os, null), os, str);
+        assertArrayEquals(str.getBytes(StandardCharsets.UTF_8), bytes);
+        assertEquals("x?y?z?😀?", new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAscii() throws IOException {
+        final JFiler filer = new JFiler() {
+            public OutputStream openStream(final String packageName, final String fileName) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        filer.setEncoding("US-ASCII");
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final byte[] bytes = encode(filer.newCountingWriter(os, null), os, MIXED);
+        assertEquals("a\\u00e9\\u20ac\\ud83d\\ude00\n\\u0416\\udbff\\udfffz\n", new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testLargeOutput() throws IOException {
+        final StringBuilder b = new StringBuilder();
+        // odd length so that surrogate pairs straddle the internal buffer boundary
+        while (b.length() < 100_000) {
+            b.append("é😀abc\n");
+        }
+        final String str = b.toString();
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final CountingWriter writer = FILER.newCountingWriter(os, null);
+        final byte[] bytes = encode(writer, os, str);
+        assertArrayEquals(str.getBytes(StandardCharsets.UTF_8), bytes);
+        assertEquals(str.length() / 7 + 1, writer.getLine());
+    }
+
+    @Test
+    public void testReuseAcrossFiles() throws IOException {
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        final CountingWriter writer = FILER.newCountingWriter(first, null);
+        // leave a dangling high surrogate which must not leak into the next file
+        writer.write("first é\n\uD83D");
+        writer.close();
+        assertArrayEquals("first é\n?".getBytes(StandardCharsets.UTF_8), first.toByteArray());
+        for (int i = 0; i < 3; i ++) {
+            final ByteArrayOutputStream next = new ByteArrayOutputStream();
+            final CountingWriter recycled = FILER.newCountingWriter(next, writer);
+            assertSame(writer, recycled);
+            assertEquals(1, recycled.getLine());
+            final byte[] bytes = encode(recycled, next, MIXED);
+            assertArrayEquals(MIXED.getBytes(StandardCharsets.UTF_8), bytes);
+            assertEquals(3, recycled.getLine());
+        }
+    }
+
+    @Test
+    public void testHighSurrogateBeforeNewline() throws IOException {
+        final String str = "a\uD83D\nb\uD83D\n";
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final CountingWriter writer = FILER.newCountingWriter(os, null);
+        final byte[] bytes = encode(writer, os, str);
+        assertEquals("a?\nb?\n", new String(bytes, StandardCharsets.UTF_8));
+        assertEquals(3, writer.getLine());
+        final ByteArrayOutputStream single = new ByteArrayOutputStream();
+        final CountingWriter chars = FILER.newCountingWriter(single, null);
+        for (int i = 0; i < str.length(); i ++) {
+            chars.write(str.charAt(i));
+        }
+        chars.close();
+        assertArrayEquals(bytes, single.toByteArray());
+        assertEquals(3, chars.getLine());
+    }
+}
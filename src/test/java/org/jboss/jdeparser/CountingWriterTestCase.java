@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class CountingWriterTestCase {
+
+    private static String text() {
+        final StringBuilder b = new StringBuilder();
+        // longer than the internal buffer, with lines straddling its boundary
+        for (int i = 0; i < 1000; i ++) {
+            b.append("line ").append(i).append("\r\n");
+        }
+        return b.toString();
+    }
+
+    private static void write(final CountingWriter writer, final String text) throws IOException {
+        final int third = text.length() / 3;
+        writer.write(text, 0, third);
+        writer.write(new StringBuilder(text), third, third);
+        writer.write(text.substring(2 * third, text.length() - 1).toCharArray());
+        writer.write(text.charAt(text.length() - 1));
+        writer.close();
+    }
+
+    @Test
+    public void testCharLines() throws IOException {
+        final String text = text();
+        final StringWriter out = new StringWriter();
+        final CountingWriter writer = new CountingWriter(out);
+        write(writer, text);
+        assertEquals(text, out.toString());
+        assertEquals(1001, writer.getLine());
+        // a reset writer counts from the start again
+        final StringWriter next = new StringWriter();
+        writer.reset(next);
+        assertEquals(1, writer.getLine());
+        write(writer, "a\nb\n");
+        assertEquals("a\nb\n", next.toString());
+        assertEquals(3, writer.getLine());
+    }
+
+    @Test
+    public void testAppendableLines() throws IOException {
+        final String text = text();
+        final StringBuilder out = new StringBuilder();
+        final CountingWriter writer = new AppendableCountingWriter(out);
+        write(writer, text);
+        assertEquals(text, out.toString());
+        assertEquals(1001, writer.getLine());
+    }
+}
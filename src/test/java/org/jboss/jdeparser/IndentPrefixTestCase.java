@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class IndentPrefixTestCase {
+
+    /**
+     * An indent which adds nothing, but which forces the writer to walk the whole indent chain.
+     */
+    private static final Indent PASS_THROUGH = new Indent() {
+        public void addIndent(final Indent next, final FormatPreferences preferences, final StringBuilder lineBuffer) {
+            next.addIndent(next, preferences, lineBuffer);
+        }
+
+        public void escape(final Indent next, final StringBuilder b, final int idx) {
+            next.escape(next, b, idx);
+        }
+
+        public void unescaped(final Indent next, final StringBuilder b, final int idx) {
+            next.unescaped(next, b, idx);
+        }
+    };
+
+    private static final FormatPreferences.Indentation[] SEQUENCE = {
+        FormatPreferences.Indentation.MEMBERS_TOP_LEVEL,
+        FormatPreferences.Indentation.LINE,
+        FormatPreferences.Indentation.LINE_CONTINUATION,
+        null,
+        FormatPreferences.Indentation.LABELS,
+        FormatPreferences.Indentation.LINE,
+        null,
+        null,
+        FormatPreferences.Indentation.CASE_LABELS,
+        FormatPreferences.Indentation.LINE,
+        null,
+        null,
+        null,
+        FormatPreferences.Indentation.LINE,
+        null,
+        null,
+    };
+
+    private static void render(final SourceFileWriter writer, final FormatPreferences format, final StringWriter out, final boolean chain) throws IOException {
+        writer.open(format, new CountingWriter(out));
+        if (chain) {
+            writer.pushIndent(PASS_THROUGH);
+        }
+        final ArrayDeque<FormatPreferences.Indentation> stack = new ArrayDeque<>();
+        for (FormatPreferences.Indentation indentation : SEQUENCE) {
+            if (indentation == null) {
+                writer.popIndent(stack.pop());
+            } else {
+                writer.pushIndent(indentation);
+                stack.push(indentation);
+            }
+            writer.writeEscaped("x" + stack.size());
+            writer.nl();
+        }
+        if (chain) {
+            writer.popIndent(PASS_THROUGH);
+        }
+        writer.close();
+        writer.reset(true);
+    }
+
+    private static FormatPreferences format(final int line, final boolean absoluteLabels) {
+        final FormatPreferences format = new FormatPreferences(new Properties());
+        format.setIndent(FormatPreferences.Indentation.LINE, line);
+        format.setIndent(FormatPreferences.Indentation.LABELS, 1);
+        if (absoluteLabels) {
+            format.setIndentAbsolute(FormatPreferences.Indentation.LABELS);
+        } else {
+            format.clearIndentAbsolute(FormatPreferences.Indentation.LABELS);
+        }
+        return format;
+    }
+
+    @Test
+    public void testPrefixMatchesChain() throws IOException {
+        final SourceFileWriter writer = new SourceFileWriter();
+        for (FormatPreferences format : new FormatPreferences[] { format(4, false), format(2, true), format(3, false) }) {
+            // the same writer is reused with changed preferences, so cached prefixes must not survive
+            final StringWriter cached = new StringWriter();
+            render(writer, format, cached, false);
+            final StringWriter walked = new StringWriter();
+            render(new SourceFileWriter(), format, walked, true);
+            assertEquals(walked.toString(), cached.toString());
+        }
+    }
+
+    @Test
+    public void testAbsoluteIndent() throws IOException {
+        final StringWriter out = new StringWriter();
+        render(new SourceFileWriter(), format(4, true), out, false);
+        final String[] lines = out.toString().split(System.lineSeparator());
+        // the label line is indented absolutely, and the line within it is relative to that
+        assertEquals(" x3", lines[4]);
+        assertEquals("     x4", lines[5]);
+    }
+}
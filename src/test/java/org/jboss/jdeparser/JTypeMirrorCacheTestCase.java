@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class JTypeMirrorCacheTestCase {
+
+    private static final String SOURCE = """
+        package org.foo.bar;
+
+        import java.util.List;
+        import java.util.Map;
+
+        public class Subject<T extends Number> {
+            public Subject(int count) {
+            }
+
+            public List<String> names(int[] values, Map<String, ? extends T> map, List<String> again) {
+                return null;
+            }
+        }
+        """;
+
+    @SupportedAnnotationTypes("*")
+    static final class ConvertingProcessor extends AbstractProcessor {
+        final List<JType[]> signatures = new ArrayList<>();
+        final List<JTypeMirrorCache> caches = new ArrayList<>();
+        boolean memoized;
+        boolean distinctMirrors;
+        long structuralMisses = -1;
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+            final JTypeMirrorCache cache = JTypeMirrorCache.of(processingEnv);
+            // the same cache lasts across rounds
+            caches.add(cache);
+            final TypeElement subject = processingEnv.getElementUtils().getTypeElement("org.foo.bar.Subject");
+            if (roundEnv.processingOver() || subject == null) {
+                return false;
+            }
+            // each lookup creates a new mirror, which must still find the earlier conversion
+            final TypeElement list = processingEnv.getElementUtils().getTypeElement("java.util.List");
+            final TypeMirror string = processingEnv.getElementUtils().getTypeElement("java.lang.String").asType();
+            final TypeMirror first = processingEnv.getTypeUtils().getDeclaredType(list, string);
+            final TypeMirror second = processingEnv.getTypeUtils().getDeclaredType(list, string);
+            distinctMirrors = first != second;
+            final JType firstType = cache.typeOf(first);
+            final long misses = cache.getStatistics().getMisses();
+            final JType secondType = cache.typeOf(second);
+            if (firstType == secondType) {
+                structuralMisses = cache.getStatistics().getMisses() - misses;
+            }
+            for (Element element : subject.getEnclosedElements()) {
+                if (element.getKind() == ElementKind.METHOD || element.getKind() == ElementKind.CONSTRUCTOR) {
+                    final ExecutableElement method = (ExecutableElement) element;
+                    signatures.add(cache.signatureOf(method));
+                    if (element.getKind() == ElementKind.METHOD) {
+                        final TypeMirror returnType = method.getReturnType();
+                        final TypeMirror again = method.getParameters().get(2).asType();
+                        final JType converted = cache.typeOf(returnType);
+                        memoized = converted == cache.typeOf(returnType)
+                            && converted == cache.signatureOf(method)[0]
+                            && converted.equals(cache.typeOf(again))
+                            && converted.equals(JTypes.typeOf(returnType));
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    @Test
+    public void testConversion() {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler);
+        final JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///org/foo/bar/Subject.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return SOURCE;
+            }
+        };
+        final ConvertingProcessor processor = new ConvertingProcessor();
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, List.of("-proc:only"), null, List.of(source));
+        task.setProcessors(List.of(processor));
+        assertTrue(task.call());
+        assertEquals(2, processor.signatures.size());
+        assertArrayEquals(new JType[] { JType.VOID, JType.INT }, processor.signatures.get(0));
+        final JType strings = JTypes.typeOf(List.class).typeArg(String.class);
+        assertArrayEquals(new JType[] {
+            strings,
+            JType.INT.array(),
+            JTypes.typeOf(Map.class).typeArg(JTypes.typeOf(String.class), JTypes.typeNamed("T").wildcardExtends()),
+            strings,
+        }, processor.signatures.get(1));
+        assertTrue(processor.memoized);
+        assertTrue(processor.distinctMirrors);
+        assertEquals(0, processor.structuralMisses);
+        assertTrue(processor.caches.size() > 1);
+        for (JTypeMirrorCache cache : processor.caches) {
+            assertSame(processor.caches.get(0), cache);
+        }
+    }
+}
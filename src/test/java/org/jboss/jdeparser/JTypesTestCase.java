@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class JTypesTestCase {
+
+    @Test
+    public void testTypeNamedIsInterned() throws Exception {
+        final JType type = JTypes.typeNamed("org.foo.bar.Interned");
+        for (int i = 0; i < 100; i ++) {
+            JTypes.typeNamed("org.foo.bar.Other" + i);
+        }
+        assertSame(type, JTypes.typeNamed("org.foo.bar.Interned"));
+        assertSame(type, CompletableFuture.supplyAsync(() -> JTypes.typeNamed("org.foo.bar.Interned")).get());
+        assertSame(type.nestedType("Inner"), JTypes.typeNamed("org.foo.bar.Interned").nestedType("Inner"));
+    }
+
+    @Test
+    public void testGenericTypeIsInterned() {
+        final JType list = JTypes.typeNamed("java.util.List");
+        final JType[] args = { JTypes.typeNamed("java.lang.String") };
+        final JType type = list.typeArg(args);
+        args[0] = JType.INT;
+        assertSame(type, JTypes.typeNamed("java.util.List").typeArg(String.class));
+        assertSame(type.wildcardExtends(), list.typeArg(String.class).wildcardExtends());
+    }
+
+    @Test
+    public void testWildcardIsInterned() {
+        final int capacity = JDeparser.getCacheCapacity(JDeparser.Cache.NESTED_TYPES);
+        JDeparser.setCacheCapacity(JDeparser.Cache.NESTED_TYPES, 0);
+        try {
+            // equal but distinct bounds still give the same wildcard
+            final JType outer = JTypes.typeNamed("org.foo.bar.Bounds");
+            final JType a = outer.nestedType("A");
+            final JType b = outer.nestedType("A");
+            assertNotSame(a, b);
+            assertSame(a.wildcardExtends(), b.wildcardExtends());
+            assertSame(a.wildcardSuper(), b.wildcardSuper());
+            assertNotSame(a.wildcardExtends(), a.wildcardSuper());
+            assertEquals(JType.WILDCARD, JType.OBJECT.wildcardExtends());
+        } finally {
+            JDeparser.setCacheCapacity(JDeparser.Cache.NESTED_TYPES, capacity);
+        }
+    }
+
+    @Test
+    public void testCacheStatistics() {
+        final CacheStatistics before = JDeparser.getCacheStatistics(JDeparser.Cache.NESTED_TYPES);
+        final int capacity = JDeparser.getCacheCapacity(JDeparser.Cache.NESTED_TYPES);
+        JDeparser.setCacheCapacity(JDeparser.Cache.NESTED_TYPES, 2);
+        try {
+            final JType type = JTypes.typeNamed("org.foo.bar.Outer");
+            final JType a = type.nestedType("A");
+            assertSame(a, type.nestedType("A"));
+            type.nestedType("B");
+            type.nestedType("C");
+            final CacheStatistics after = JDeparser.getCacheStatistics(JDeparser.Cache.NESTED_TYPES);
+            assertEquals(1, after.getHits() - before.getHits());
+            assertEquals(3, after.getMisses() - before.getMisses());
+            assertEquals(1, after.getEvictions() - before.getEvictions());
+            // spread over instances, so not measurable
+            assertEquals(-1, after.getSize());
+            assertEquals(2, after.getCapacity());
+            assertNotSame(a, type.nestedType("A"));
+        } finally {
+            JDeparser.setCacheCapacity(JDeparser.Cache.NESTED_TYPES, capacity);
+        }
+    }
+
+    @Test
+    public void testFullTableKeepsIdentity() {
+        final JType interned = JTypes.typeNamed("org.foo.bar.BeforeFull");
+        final int capacity = JDeparser.getCacheCapacity(JDeparser.Cache.TYPE_NAMES);
+        final long size = JDeparser.getCacheStatistics(JDeparser.Cache.TYPE_NAMES).getSize();
+        JDeparser.setCacheCapacity(JDeparser.Cache.TYPE_NAMES, (int) size);
+        try {
+            final JType extra = JTypes.typeNamed("org.foo.bar.AfterFull");
+            // a full table does not evict, so the types it holds stay canonical
+            assertSame(interned, JTypes.typeNamed("org.foo.bar.BeforeFull"));
+            assertNotSame(extra, JTypes.typeNamed("org.foo.bar.AfterFull"));
+            assertEquals(extra, JTypes.typeNamed("org.foo.bar.AfterFull"));
+            assertEquals(size, JDeparser.getCacheStatistics(JDeparser.Cache.TYPE_NAMES).getSize());
+        } finally {
+            JDeparser.setCacheCapacity(JDeparser.Cache.TYPE_NAMES, capacity);
+        }
+    }
+
+    static final class Nested {
+    }
+
+    @Test
+    public void testDropCachesKeepsClassTypesConsistent() {
+        final JType before = JTypes.typeOf(JTypesTestCase.class);
+        assertSame(before, JTypes.typeNamed(JTypesTestCase.class.getName()));
+        assertSame(before.nestedType("Nested"), JTypes.typeOf(Nested.class));
+        JDeparser.dropCaches();
+        final JType after = JTypes.typeOf(JTypesTestCase.class);
+        assertNotSame(before, after);
+        assertSame(after, JTypes.typeNamed(JTypesTestCase.class.getName()));
+        assertSame(after, JTypes.typeOf(JTypesTestCase.class));
+        assertSame(after.nestedType("Nested"), JTypes.typeOf(Nested.class));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class MemoryFilerTestCase {
+
+    @Test
+    public void testMemoryFiler() throws IOException {
+        final JMemoryFiler filer = new JMemoryFiler();
+        final JSources sources = JDeparser.createSources(filer, new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        final JClassDef foo = sourceFile._class(PUBLIC, "Foo");
+        foo.method(PUBLIC, String.class, "message").body()._return(JExprs.str("café"));
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        sources.writeSources();
+
+        final CharSequence source = filer.getSource("org.foo.bar", "Foo");
+        assertEquals(b.toString(), source.toString());
+        assertEquals(StandardCharsets.UTF_8.encode(b.toString()), filer.getSourceBytes("org.foo.bar", "Foo"));
+        assertEquals(1, filer.getSources().size());
+        assertEquals(source, filer.getSources().get("org.foo.bar.Foo"));
+        assertNull(filer.getSource("org.foo.bar", "Bar"));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check the number of objects and the number of bytes retained per statement of a large method body against fixed
+ * budgets.  Both are found by walking the model, so the result does not depend on the JVM, its heap layout or the
+ * garbage collector; bytes are estimated from the field layout of a 64-bit JVM with compressed references.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class ModelFootprintTestCase {
+
+    /**
+     * The budget of objects per statement.  The model took about 3.34 objects per statement of this mix before stateless
+     * statements became shared and operands stopped carrying parenthesis wrappers; it now takes about 2.84.
+     */
+    private static final double OBJECTS_PER_STATEMENT = 2.85;
+
+    /**
+     * The budget of bytes per statement, which unlike the object count also covers spare list capacity.  The model
+     * takes about 98 bytes per statement of this mix, and about 99.5 if finished blocks are not trimmed.
+     */
+    private static final double BYTES_PER_STATEMENT = 100;
+
+    private static final String PACKAGE_NAME = ModelFootprintTestCase.class.getPackageName();
+
+    private static int build(final JBlock body, final int count) {
+        final JAssignableExpr a = JExprs.$v("a");
+        final JExpr b = JExprs.$v("b");
+        final JExpr c = JExprs.$v("c");
+        for (int i = 0; i < count; i ++) {
+            final JBlock loop = body._while(a.lt(b));
+            loop.assign(a, a.plus(b).times(c));
+            final JIf _if = loop._if(a.eq(c));
+            _if._break();
+            _if._else()._continue();
+            loop.call(c, "run");
+        }
+        body._return();
+        return count * 6 + 1;
+    }
+
+    /**
+     * Walk the objects reachable from the given root, adding their number and estimated size to the totals and their
+     * count per class to the map.  Types are shared by the whole process and the enclosing method, class, file and
+     * sources are not part of the statements, so none of these are counted or followed.  Objects of this package and
+     * collections are followed through their fields; other objects are counted but not followed.
+     *
+     * @param root the root object
+     * @param counts the map to add the count of each class to
+     * @param totals the array to add the number of objects and bytes to
+     */
+    private static void walk(final Object root, final Map<Class<?>, Integer> counts, final long[] totals) throws IllegalAccessException {
+        final IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<>();
+        final ArrayDeque<Object> queue = new ArrayDeque<>();
+        queue.add(root);
+        seen.put(root, Boolean.TRUE);
+        while (! queue.isEmpty()) {
+            final Object object = queue.poll();
+            final Class<?> clazz = object.getClass();
+            counts.merge(clazz, 1, Integer::sum);
+            totals[0] ++;
+            final ArrayList<Object> referenced = new ArrayList<>();
+            if (clazz.isArray()) {
+                final Class<?> componentType = clazz.getComponentType();
+                final int length = Array.getLength(object);
+                totals[1] += align(16 + (long) length * sizeOf(componentType));
+                if (! componentType.isPrimitive()) {
+                    for (int i = 0; i < length; i ++) {
+                        referenced.add(Array.get(object, i));
+                    }
+                }
+            } else {
+                final boolean follow = clazz.getPackageName().equals(PACKAGE_NAME) || object instanceof Collection;
+                long size = 12;
+                for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                    // java.lang is not opened to the tests, and enums hold nothing of interest
+                    final boolean followFields = follow && ! c.getPackageName().equals("java.lang");
+                    for (Field field : c.getDeclaredFields()) {
+                        if (! Modifier.isStatic(field.getModifiers())) {
+                            size += sizeOf(field.getType());
+                            if (followFields && ! field.getType().isPrimitive()) {
+                                field.setAccessible(true);
+                                referenced.add(field.get(object));
+                            }
+                        }
+                    }
+                }
+                totals[1] += align(size);
+            }
+            for (Object ref : referenced) {
+                if (ref != null && ! (ref instanceof AbstractJType) && ! (ref instanceof AbstractJMethodDef)
+                        && ! (ref instanceof AbstractJClassDef) && ! (ref instanceof ImplJSourceFile) && ! (ref instanceof JSources)
+                        && seen.put(ref, Boolean.TRUE) == null) {
+                    queue.add(ref);
+                }
+            }
+        }
+    }
+
+    private static int sizeOf(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        } else {
+            // int, float, or a compressed reference
+            return 4;
+        }
+    }
+
+    private static long align(final long size) {
+        return size + 7 & ~7L;
+    }
+
+    @Test
+    public void testObjectsPerStatement() throws IllegalAccessException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Big");
+        final JMethodDef method = sourceFile._class(PUBLIC, "Big").method(PUBLIC, JType.VOID, "run");
+        final JBlock body = method.body();
+        final int statements = build(body, 1000);
+        final Map<Class<?>, Integer> counts = new IdentityHashMap<>();
+        final long[] totals = new long[2];
+        walk(body, counts, totals);
+        final double perStatement = totals[0] / (double) statements;
+        assertTrue(perStatement <= OBJECTS_PER_STATEMENT, "Retained " + perStatement + " objects per statement: " + counts);
+        final double bytesPerStatement = totals[1] / (double) statements;
+        assertTrue(bytesPerStatement <= BYTES_PER_STATEMENT, "Retained " + bytesPerStatement + " bytes per statement: " + counts);
+        // operands are not wrapped in parentheses when the model is built
+        assertEquals(null, counts.get(ParenJExpr.class), counts.toString());
+        // one instance each of return, break and continue
+        assertEquals(3, counts.get(KeywordJStatement.class), counts.toString());
+    }
+
+    @Test
+    public void testFileWithoutImports() throws IllegalAccessException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Small");
+        final Map<Class<?>, Integer> counts = new IdentityHashMap<>();
+        walk(sourceFile, counts, new long[2]);
+        // no collections until content is added
+        assertEquals(null, counts.get(ArrayList.class), counts.toString());
+        assertEquals(null, counts.get(HashMap.class), counts.toString());
+        sourceFile._class(PUBLIC, "Small");
+        counts.clear();
+        walk(sourceFile, counts, new long[2]);
+        assertEquals(1, counts.get(ArrayList.class), counts.toString());
+        assertEquals(null, counts.get(HashMap.class), counts.toString());
+    }
+}
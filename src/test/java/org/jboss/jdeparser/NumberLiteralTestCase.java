@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class NumberLiteralTestCase {
+
+    private static String render(JExpr expr) throws IOException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        sourceFile._class(PUBLIC, "Foo").field(PUBLIC, int.class, "value", expr);
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        final int start = b.indexOf("value = ") + 8;
+        return b.substring(start, b.indexOf(";", start));
+    }
+
+    @Test
+    public void testSharedInstances() {
+        assertSame(JExprs.decimal(-128), JExprs.decimal(-128));
+        assertSame(JExprs.decimal(1023), JExprs.decimal(1023));
+        assertSame(JExprs.hex(255), JExprs.hex(255));
+        assertSame(JExprs.binary(7), JExprs.binary(7));
+        assertSame(JExprs.ch('a'), JExprs.ch('a'));
+        assertSame(JExpr.ZERO, JExprs.decimal(0));
+        assertSame(JExpr.ONE, JExprs.decimal(1));
+        // each radix has its own literal
+        assertNotSame(JExprs.decimal(16), JExprs.hex(16));
+        assertNotSame(JExprs.hex(16), JExprs.binary(16));
+        assertNotSame(JExprs.decimal(-129), JExprs.decimal(-129));
+        assertNotSame(JExprs.decimal(1024), JExprs.decimal(1024));
+    }
+
+    @Test
+    public void testText() throws IOException {
+        for (int val : new int[] { -129, -128, -1, 0, 15, 1023, 1024, Integer.MIN_VALUE, Integer.MAX_VALUE }) {
+            assertEquals(Integer.toString(val), render(JExprs.decimal(val)));
+            assertEquals("0x" + Integer.toHexString(val), render(JExprs.hex(val)));
+            assertEquals("0b" + Integer.toBinaryString(val), render(JExprs.binary(val)));
+        }
+        assertEquals("'a'", render(JExprs.ch('a')));
+        assertEquals("'Ж'", render(JExprs.ch('Ж')));
+        assertEquals("-5L", render(JExprs.decimal(-5L)));
+    }
+}
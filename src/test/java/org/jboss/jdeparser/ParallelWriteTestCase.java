@@ -0,0 +1,235 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class ParallelWriteTestCase {
+
+    private static final int FILES = 50;
+
+    /**
+     * A filer which keeps the bytes of each file, optionally claiming thread safety or customizing the writer.
+     */
+    static class MapFiler extends JFiler {
+        final ConcurrentHashMap<String, ByteArrayOutputStream> files = new ConcurrentHashMap<>();
+        private final boolean threadSafe;
+
+        MapFiler(final boolean threadSafe) {
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public OutputStream openStream(final String packageName, final String fileName) throws IOException {
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            if (files.putIfAbsent(packageName + "." + fileName, stream) != null) {
+                throw new IOException("Already exists");
+            }
+            return stream;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+
+        byte[] get(final String fileName) {
+            return files.get("org.foo.bar." + fileName).toByteArray();
+        }
+    }
+
+    /**
+     * A filer whose writer marks every file it writes.
+     */
+    static final class MarkingFiler extends MapFiler {
+        MarkingFiler() {
+            super(false);
+        }
+
+        @Override
+        public Writer openWriter(final String packageName, final String fileName) throws IOException {
+            final Writer writer = super.openWriter(packageName, fileName);
+            writer.write("// marked\n");
+            return new FilterWriter(writer) {
+            };
+        }
+    }
+
+    private static JSources generate(JFiler filer) throws IOException {
+        return generate(JDeparser.createSources(filer, new FormatPreferences(new Properties())), false);
+    }
+
+    private static JSources generate(JSources sources, boolean commit) throws IOException {
+        for (int i = 0; i < FILES; i ++) {
+            final JSourceFile file = sources.createSourceFile("org.foo.bar", "Baz" + i);
+            file._import(List.class);
+            final JClassDef classDef = file._class(PUBLIC, "Baz" + i);
+            for (int j = 0; j < i; j ++) {
+                final JBlock body = classDef.method(PUBLIC, JTypes.typeOf(List.class).typeArg(String.class), "method" + j).body();
+                body._return(JTypes.$t(List.class).call("of").arg(JExprs.str("value é 😀 " + j)));
+            }
+            if (commit) {
+                file.commit();
+                // the file may be rendering or released on another thread by now
+                assertThrows(IllegalStateException.class, () -> file._class(PUBLIC, "Late"));
+                assertThrows(IllegalStateException.class, () -> classDef.method(PUBLIC, void.class, "late"));
+                assertThrows(IllegalStateException.class, () -> classDef._implements(Runnable.class));
+                assertThrows(IllegalStateException.class, () -> file._import(List.class));
+                assertThrows(IllegalStateException.class, () -> file.importStatic(List.class, "of"));
+            }
+        }
+        return sources;
+    }
+
+    private static void assertParallelMatchesSerial(final MapFiler serial, final MapFiler parallel) throws IOException {
+        generate(serial).writeSources();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final JSources sources;
+        try {
+            sources = generate(parallel);
+            sources.writeSources(pool, 3);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(FILES, sources.getWrittenFileCount());
+        for (int i = 0; i < FILES; i ++) {
+            assertArrayEquals(serial.get("Baz" + i), parallel.get("Baz" + i));
+        }
+    }
+
+    @Test
+    public void testBufferedParallelMatchesSerial() throws IOException {
+        assertParallelMatchesSerial(new MapFiler(false), new MapFiler(false));
+    }
+
+    @Test
+    public void testDirectParallelMatchesSerial() throws IOException {
+        assertParallelMatchesSerial(new MapFiler(true), new MapFiler(true));
+    }
+
+    @Test
+    public void testCustomWriterParallelMatchesSerial() throws IOException {
+        final MarkingFiler serial = new MarkingFiler();
+        assertParallelMatchesSerial(serial, new MarkingFiler());
+        assertTrue(new String(serial.get("Baz3"), StandardCharsets.UTF_8).startsWith("// marked\n"));
+    }
+
+    @Test
+    public void testCommitMatchesSerial() throws IOException {
+        final MapFiler serial = new MapFiler(false);
+        generate(serial).writeSources();
+        final MapFiler committed = new MapFiler(false);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final JSources sources;
+        try {
+            sources = generate(JDeparser.createSources(committed, new FormatPreferences(new Properties()), pool, 2), true);
+            sources.writeSources();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(FILES, sources.getWrittenFileCount());
+        for (int i = 0; i < FILES; i ++) {
+            assertArrayEquals(serial.get("Baz" + i), committed.get("Baz" + i));
+        }
+    }
+
+    @Test
+    public void testRetainedBlocksAfterCommit() throws IOException {
+        final JSources sources = JDeparser.createSources(new MapFiler(false), new FormatPreferences(new Properties()));
+        final JSourceFile file = sources.createSourceFile("org.foo.bar", "Retained");
+        final JClassDef classDef = file._class(PUBLIC, "Retained");
+        final JMethodDef method = classDef.method(PUBLIC, void.class, "run");
+        final JBlock body = method.body();
+        final JIf _if = body._if(JExpr.TRUE);
+        final JTry _try = _if._try();
+        final JSwitch _switch = _try._switch(JExprs.$v("x"));
+        final JBlock _case = _switch._case(JExprs.decimal(1));
+        final JBlock init = classDef.init();
+        file.commit();
+        assertThrows(IllegalStateException.class, () -> body._return());
+        assertThrows(IllegalStateException.class, () -> body._break());
+        assertThrows(IllegalStateException.class, () -> _if.block(JBlock.Braces.OPTIONAL));
+        assertThrows(IllegalStateException.class, () -> _if._else());
+        assertThrows(IllegalStateException.class, () -> _try._catch(0, Exception.class, "e"));
+        assertThrows(IllegalStateException.class, () -> _try._finally());
+        assertThrows(IllegalStateException.class, () -> _switch._case(JExprs.decimal(2)));
+        assertThrows(IllegalStateException.class, () -> _switch._default());
+        assertThrows(IllegalStateException.class, () -> _case._continue());
+        assertThrows(IllegalStateException.class, () -> init._return());
+        assertThrows(IllegalStateException.class, () -> method.param(int.class, "x"));
+        assertThrows(IllegalStateException.class, () -> method.varargParam(int.class, "y"));
+        assertThrows(IllegalStateException.class, () -> method._throws(Exception.class));
+        assertThrows(IllegalStateException.class, () -> method.typeParam("T"));
+    }
+
+    @Test
+    public void testCommitInFlightLimit() throws Exception {
+        // tasks only run when the test runs them
+        final LinkedBlockingQueue<Runnable> queued = new LinkedBlockingQueue<>();
+        final JSources sources = JDeparser.createSources(new MapFiler(false), new FormatPreferences(new Properties()), queued::add, 2);
+        final JSourceFile[] files = new JSourceFile[3];
+        for (int i = 0; i < files.length; i ++) {
+            files[i] = sources.createSourceFile("org.foo.bar", "Baz" + i);
+            files[i]._class(PUBLIC, "Baz" + i);
+        }
+        files[0].commit();
+        files[1].commit();
+        assertEquals(2, queued.size());
+        final Thread committer = new Thread(() -> {
+            try {
+                files[2].commit();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        committer.start();
+        committer.join(200);
+        // the third commit waits for one of the first two files to be written
+        assertTrue(committer.isAlive());
+        assertEquals(2, queued.size());
+        queued.take().run();
+        committer.join();
+        assertEquals(2, queued.size());
+        queued.take().run();
+        queued.take().run();
+        sources.writeSources();
+        assertEquals(3, sources.getWrittenFileCount());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PRIVATE;
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that equal models render to identical bytes, regardless of build order or JVM instance.
+ *
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class ReproducibleOutputTestCase {
+
+    private static final List<String> TYPES = Arrays.asList(
+        "java.util.List", "java.util.Map", "java.math.BigDecimal", "java.io.File", "org.foo.Alpha", "org.bar.Beta",
+        "java.util.concurrent.Executor", "javax.lang.model.element.Element", "org.foo.zeta.Gamma", "org.foo.Delta"
+    );
+
+    private static String render(final List<String> types, final boolean auto) throws IOException {
+        final FormatPreferences format = new FormatPreferences(new Properties());
+        if (auto) {
+            format.addOption(FormatPreferences.Opt.AUTO_IMPORTS);
+        }
+        final JMemoryFiler filer = new JMemoryFiler();
+        final JSources sources = JDeparser.createSources(filer, format);
+        for (int i = 0; i < 3; i ++) {
+            final JSourceFile sourceFile = sources.createSourceFile("org.foo.out", "Out" + i);
+            for (String type : types) {
+                sourceFile._import(type);
+                sourceFile.importStatic(type, type.substring(type.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT) + i);
+            }
+            final JClassDef classDef = sourceFile._class(PUBLIC, "Out" + i);
+            for (String type : TYPES) {
+                classDef.field(PRIVATE, JTypes.typeNamed(type), "f" + type.replace('.', '_'));
+            }
+        }
+        sources.writeSources();
+        final StringBuilder b = new StringBuilder();
+        for (Map.Entry<String, CharSequence> entry : filer.getSources().entrySet()) {
+            b.append("// ").append(entry.getKey()).append('\n').append(entry.getValue());
+        }
+        return b.toString();
+    }
+
+    private static String renderAll(final List<String> types) throws IOException {
+        return render(types, false) + render(types, true);
+    }
+
+    @Test
+    public void testImportOrderIsCanonical() throws IOException {
+        final String expected = renderAll(TYPES);
+        for (int seed = 0; seed < 5; seed ++) {
+            final List<String> shuffled = new ArrayList<>(TYPES);
+            Collections.shuffle(shuffled, new Random(seed));
+            assertEquals(expected, renderAll(shuffled));
+        }
+    }
+
+    @Test
+    public void testOutputIsStableAcrossJvms() throws Exception {
+        final String expected = renderAll(TYPES);
+        for (int i = 0; i < 2; i ++) {
+            final Process process = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                // perturb hashing and allocation so that any identity-based ordering would show up
+                "-XX:+UnlockExperimentalVMOptions",
+                "-XX:hashCode=" + (i + 2),
+                "-Xmx" + (64 << i) + "m",
+                "-cp", System.getProperty("java.class.path"),
+                ReproducibleOutputTestCase.class.getName()
+            ).redirectErrorStream(true).start();
+            final String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(0, process.waitFor(), output);
+            assertEquals(expected, output);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.write(renderAll(TYPES).getBytes(StandardCharsets.UTF_8));
+        System.out.flush();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class SourcesClearTestCase {
+
+    private static JClassDef build(final JSources sources, final String message) {
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        final JClassDef foo = sourceFile._class(PUBLIC, "Foo");
+        foo.method(PUBLIC, String.class, "message").body()._return(JExprs.str(message));
+        sources.createSourceFile("org.foo.bar", "Bar")._class(PUBLIC, "Bar");
+        return foo;
+    }
+
+    @Test
+    public void testClearAndReuse() throws IOException {
+        final JMemoryFiler filer = new JMemoryFiler();
+        final JSources sources = JDeparser.createSources(filer, new FormatPreferences(new Properties()));
+        final JClassDef stale = build(sources, "first");
+        sources.writeSources();
+        assertEquals(2, sources.getWrittenFileCount());
+        final String first = filer.getSource("org.foo.bar", "Foo").toString();
+
+        sources.clear();
+        assertEquals(0, sources.getWrittenFileCount());
+        assertThrows(IllegalStateException.class, () -> stale.field(PUBLIC, int.class, "x"));
+        sources.writeSources();
+        assertEquals(0, sources.getWrittenFileCount());
+
+        build(sources, "second");
+        sources.writeSources();
+        assertEquals(2, sources.getWrittenFileCount());
+        assertEquals(first.replace("first", "second"), filer.getSource("org.foo.bar", "Foo").toString());
+    }
+
+    @Test
+    public void testStaleSourceFile() throws IOException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        final JMethodDef method = sourceFile._class(PUBLIC, "Foo").method(PUBLIC, void.class, "run");
+        final JBlock body = method.body()._if(JExpr.TRUE);
+        sources.clear();
+        assertThrows(IllegalStateException.class, () -> sourceFile._class(PUBLIC, "Foo"));
+        assertThrows(IllegalStateException.class, () -> method.param(int.class, "x"));
+        assertThrows(IllegalStateException.class, body::_return);
+        assertThrows(IllegalStateException.class, () -> sourceFile.writeTo(new StringBuilder()));
+        assertThrows(IllegalStateException.class, sourceFile::commit);
+    }
+}
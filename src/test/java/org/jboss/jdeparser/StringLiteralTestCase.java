@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class StringLiteralTestCase {
+
+    private static String render(String value) throws IOException {
+        final JMemoryFiler filer = new JMemoryFiler();
+        final JSources sources = JDeparser.createSources(filer, new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        sourceFile._class(PUBLIC, "Foo").field(PUBLIC | JMod.STATIC | JMod.FINAL, String.class, "VALUE", JExprs.str(value));
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        final int start = b.indexOf("VALUE = \"") + 9;
+        return b.substring(start, b.lastIndexOf("\";"));
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        assertEquals("plain é \uD83D\uDE00", render("plain é \uD83D\uDE00"));
+        assertEquals("\\\"q\\\" \\\\ \\n\\r\\t\\b\\f", render("\"q\" \\ \n\r\t\b\f"));
+        assertEquals("\\u0000\\u0001\\u007f\\u0085\\u200b\\u2028\\ud800x", render("\0\u0001\u007f\u0085\u200b\u2028\ud800x"));
+        // bidirectional overrides, separators, unpaired surrogates and the byte order mark are always escaped
+        assertEquals("\\u202e\\u2066\\u2029\\udc00\\ufeff", render("\u202e\u2066\u2029\udc00\ufeff"));
+        // whatever the Unicode version of the JDK, other characters are written as-is, assigned or not
+        assertEquals("\ue000\u0378\u0600\ufff0", render("\ue000\u0378\u0600\ufff0"));
+    }
+
+    @Test
+    public void testLargeLiteral() {
+        final StringBuilder b = new StringBuilder();
+        while (b.length() < 4 << 20) {
+            b.append("{\"key\": \"value\",\n\t\"path\": \"C:\\\\dir\"}");
+        }
+        final String value = b.toString();
+        // escaping by inserting in place takes minutes at this size
+        final String rendered = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> render(value));
+        assertTrue(rendered.startsWith("{\\\"key\\\": \\\"value\\\",\\n\\t\\\"path\\\": \\\"C:\\\\\\\\dir\\\"}"));
+        int quotes = 0;
+        for (int i = 0; i < value.length(); i ++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c == '\n' || c == '\t') {
+                quotes ++;
+            }
+        }
+        assertEquals(value.length() + quotes, rendered.length());
+    }
+}
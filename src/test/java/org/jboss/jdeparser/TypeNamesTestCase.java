@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class TypeNamesTestCase {
+
+    private static String write(final JSourceFile sourceFile) throws IOException {
+        final StringBuilder b = new StringBuilder();
+        sourceFile.writeTo(b);
+        return b.toString();
+    }
+
+    @Test
+    public void testImportChangesNames() throws IOException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        final JClassDef classDef = sourceFile._class(PUBLIC, "Foo");
+        for (int i = 0; i < 3; i ++) {
+            classDef.field(PUBLIC, List.class, "list" + i);
+        }
+        String rendered = write(sourceFile);
+        assertTrue(rendered.contains("public java.util.List list2;"), rendered);
+        sourceFile._import(List.class);
+        rendered = write(sourceFile);
+        assertTrue(rendered.contains("public List list0;"), rendered);
+        assertTrue(rendered.contains("public List list2;"), rendered);
+        assertFalse(rendered.contains("java.util.List list"), rendered);
+    }
+
+    @Test
+    public void testImportMasksSamePackage() throws IOException {
+        final JSources sources = JDeparser.createSources(new JMemoryFiler(), new FormatPreferences(new Properties()));
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", "Foo");
+        sourceFile._class(PUBLIC, "Foo").field(PUBLIC, JTypes.typeNamed("org.foo.bar.Bar"), "bar");
+        String rendered = write(sourceFile);
+        assertTrue(rendered.contains("public Bar bar;"), rendered);
+        // an import of another Bar masks the one in this package, so the cached name must be dropped
+        sourceFile._import(JTypes.typeNamed("org.other.Bar"));
+        rendered = write(sourceFile);
+        assertTrue(rendered.contains("public org.foo.bar.Bar bar;"), rendered);
+    }
+}
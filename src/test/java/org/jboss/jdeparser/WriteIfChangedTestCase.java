@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class WriteIfChangedTestCase {
+
+    @TempDir
+    File target;
+
+    private JSources generate(String message) {
+        final JSources sources = JDeparser.createSources(JFiler.newInstance(target, true), new FormatPreferences(new Properties()));
+        final JClassDef foo = sources.createSourceFile("org.foo.bar", "Foo")._class(PUBLIC, "Foo");
+        foo.method(PUBLIC, String.class, "message").body()._return(JExprs.str(message));
+        final JClassDef bar = sources.createSourceFile("org.foo.bar", "Bar")._class(PUBLIC, "Bar");
+        bar.method(PUBLIC, String.class, "message").body()._return(JExprs.str("unchanged"));
+        return sources;
+    }
+
+    @Test
+    public void testUnchangedFilesAreSkipped() throws IOException {
+        JSources sources = generate("first");
+        sources.writeSources();
+        assertEquals(2, sources.getWrittenFileCount());
+        assertEquals(0, sources.getUnchangedFileCount());
+        final File foo = new File(target, "org/foo/bar/Foo.java");
+        final File bar = new File(target, "org/foo/bar/Bar.java");
+        final long fooLength = foo.length();
+        assertEquals(true, foo.setLastModified(1000L));
+        assertEquals(true, bar.setLastModified(1000L));
+
+        sources = generate("second");
+        sources.writeSources();
+        assertEquals(1, sources.getWrittenFileCount());
+        assertEquals(1, sources.getUnchangedFileCount());
+        assertEquals(fooLength + 1, foo.length());
+        assertEquals(1000L, bar.lastModified());
+
+        sources = generate("second");
+        sources.writeSources();
+        assertEquals(0, sources.getWrittenFileCount());
+        assertEquals(2, sources.getUnchangedFileCount());
+        // the counts are cumulative until the sources are cleared
+        sources.writeSources();
+        assertEquals(0, sources.getWrittenFileCount());
+        assertEquals(4, sources.getUnchangedFileCount());
+        sources.clear();
+        assertEquals(0, sources.getUnchangedFileCount());
+    }
+}
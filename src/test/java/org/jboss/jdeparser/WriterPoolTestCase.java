@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class WriterPoolTestCase {
+
+    private static FormatPreferences format() {
+        return new FormatPreferences(new Properties());
+    }
+
+    private static JSourceFile build(final JSources sources, final String name, final int methods) {
+        final JSourceFile sourceFile = sources.createSourceFile("org.foo.bar", name);
+        final JClassDef classDef = sourceFile._class(PUBLIC, name);
+        for (int i = 0; i < methods; i ++) {
+            classDef.method(PUBLIC, String.class, "method" + i).body()._if(JExprs.$v("flag"))._return(JExprs.str("value" + i));
+        }
+        return sourceFile;
+    }
+
+    private static String render(final String name) throws IOException {
+        final StringBuilder b = new StringBuilder();
+        build(JDeparser.createSources(new JMemoryFiler(), format()), name, 3).writeTo(b);
+        return b.toString();
+    }
+
+    @Test
+    public void testLeakedStateReported() {
+        final SourceFileWriter writer = new SourceFileWriter();
+        writer.open(format(), new CountingWriter(new StringWriter()));
+        writer.pushIndent(FormatPreferences.Indentation.LINE);
+        final IllegalStateException e = assertThrows(IllegalStateException.class, () -> writer.reset(true));
+        assertTrue(e.getMessage().contains("indentation"), e.getMessage());
+        // the writer was reset regardless
+        writer.reset(true);
+    }
+
+    @Test
+    public void testReuseAfterFailedFile() throws IOException {
+        final JFiler filer = new JFiler() {
+            public OutputStream openStream(final String packageName, final String fileName) {
+                return OutputStream.nullOutputStream();
+            }
+
+            public Writer openWriter(final String packageName, final String fileName) {
+                // fails part way through a file, with indentation still stacked
+                return new Writer() {
+                    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+                        throw new IOException("Disk full");
+                    }
+
+                    public void flush() {
+                    }
+
+                    public void close() {
+                    }
+                };
+            }
+        };
+        final JSources sources = JDeparser.createSources(filer, format());
+        build(sources, "Big", 200);
+        assertThrows(IOException.class, sources::writeSources);
+        // the pooled writer which failed must render the next file exactly as a fresh one would
+        final StringBuilder b = new StringBuilder();
+        build(sources, "Foo", 3).writeTo(b);
+        assertEquals(render("Foo"), b.toString());
+        b.setLength(0);
+        build(sources, "Bar", 3).writeTo(b);
+        assertEquals(render("Bar"), b.toString());
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.jdeparser;
+
+import static org.jboss.jdeparser.JMod.PUBLIC;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
+ */
+public class ZipFilerTestCase {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] generate(boolean parallel) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (JZipFiler filer = new JZipFiler(os, 9)) {
+            final JSources sources = JDeparser.createSources(filer, new FormatPreferences(new Properties()));
+            for (String name : new String[] { "Zed", "Alpha", "Mid" }) {
+                final JClassDef classDef = sources.createSourceFile("org.foo.bar", name)._class(PUBLIC, name);
+                classDef.method(PUBLIC, String.class, "name").body()._return(JExprs.str(name));
+            }
+            if (parallel) {
+                final ForkJoinPool pool = new ForkJoinPool(3);
+                try {
+                    sources.writeSources(pool);
+                } finally {
+                    pool.shutdown();
+                }
+            } else {
+                sources.writeSources();
+            }
+        }
+        return os.toByteArray();
+    }
+
+    @Test
+    public void testDeterministicArchive() throws IOException {
+        final byte[] bytes = generate(false);
+        assertArrayEquals(bytes, generate(true));
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            assertEquals("org/foo/bar/Alpha.java", zis.getNextEntry().getName());
+            assertEquals("org/foo/bar/Mid.java", zis.getNextEntry().getName());
+            assertEquals("org/foo/bar/Zed.java", zis.getNextEntry().getName());
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    public void testCompressedWhileBuffered() throws IOException {
+        final Path archive = dir.resolve("sources.jar");
+        final JMemoryFiler memory = new JMemoryFiler();
+        long raw = 0;
+        try (JZipFiler filer = new JZipFiler(Files.newOutputStream(archive))) {
+            final FormatPreferences format = new FormatPreferences(new Properties());
+            final JSources sources = JDeparser.createSources(filer, format);
+            final JSources expected = JDeparser.createSources(memory, format);
+            for (JSources s : new JSources[] { sources, expected }) {
+                for (int i = 0; i < 20; i ++) {
+                    final JClassDef classDef = s.createSourceFile("org.foo.bär", "Gen" + i)._class(PUBLIC, "Gen" + i);
+                    for (int j = 0; j < 500; j ++) {
+                        classDef.method(PUBLIC, String.class, "method" + j).body()._return(JExprs.str("value" + j));
+                    }
+                }
+                s.writeSources();
+            }
+            try (OutputStream os = filer.openStream("", "Extra")) {
+                os.write("class Extra {}".getBytes(StandardCharsets.UTF_8));
+            }
+            for (int i = 0; i < 20; i ++) {
+                raw += memory.getSource("org.foo.bär", "Gen" + i).toString().getBytes(StandardCharsets.UTF_8).length;
+            }
+            // only compressed entries are held until the archive is written
+            assertTrue(filer.getRetainedBytes() * 10 < raw, filer.getRetainedBytes() + " retained of " + raw);
+        }
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertEquals(21, zipFile.size());
+            assertEquals("class Extra {}", new String(zipFile.getInputStream(zipFile.getEntry("Extra.java")).readAllBytes(), StandardCharsets.UTF_8));
+            for (int i = 0; i < 20; i ++) {
+                final ZipEntry entry = zipFile.getEntry("org/foo/bär/Gen" + i + ".java");
+                assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+                assertEquals(memory.getSource("org.foo.bär", "Gen" + i).toString(), new String(zipFile.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static final long FOUR_GIB = 0x1_0000_0000L;
+
+    @Test
+    public void testZip64EndRecord() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (JZipFiler.ArchiveWriter writer = new JZipFiler.ArchiveWriter(os)) {
+            // pretend that the entries and a central directory of 100 bytes took up the first 4 GiB and more
+            writer.offset = FOUR_GIB + 100;
+            writer.writeEnd(3, FOUR_GIB, 100);
+        }
+        final ByteBuffer buf = ByteBuffer.wrap(os.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(56 + 20 + 22, buf.remaining());
+        // ZIP64 end of central directory record
+        assertEquals(0x06064b50, buf.getInt());
+        assertEquals(44, buf.getLong());
+        assertEquals(45, buf.getShort());
+        assertEquals(45, buf.getShort());
+        assertEquals(0, buf.getInt());
+        assertEquals(0, buf.getInt());
+        assertEquals(3, buf.getLong());
+        assertEquals(3, buf.getLong());
+        assertEquals(100, buf.getLong());
+        assertEquals(FOUR_GIB, buf.getLong());
+        // ZIP64 end of central directory locator, pointing at the record
+        assertEquals(0x07064b50, buf.getInt());
+        assertEquals(0, buf.getInt());
+        assertEquals(FOUR_GIB + 100, buf.getLong());
+        assertEquals(1, buf.getInt());
+        // end of central directory record, whose offset is deferred to the ZIP64 record
+        assertEquals(0x06054b50, buf.getInt());
+        assertEquals(0, buf.getShort());
+        assertEquals(0, buf.getShort());
+        assertEquals(3, buf.getShort());
+        assertEquals(3, buf.getShort());
+        assertEquals(100, buf.getInt());
+        assertEquals(-1, buf.getInt());
+        assertEquals(0, buf.getShort());
+    }
+
+    @Test
+    public void testZip64CentralHeader() throws IOException {
+        final byte[] content = "class A {}".getBytes(StandardCharsets.UTF_8);
+        final JZipFiler.Entry entry = new JZipFiler.Entry("A.java", content, content.length, 9);
+        entry.offset = FOUR_GIB + 7;
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (JZipFiler.ArchiveWriter writer = new JZipFiler.ArchiveWriter(os)) {
+            writer.writeCentralHeader(entry);
+        }
+        final ByteBuffer buf = ByteBuffer.wrap(os.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(46 + 6 + 12, buf.remaining());
+        assertEquals(0x02014b50, buf.getInt());
+        assertEquals(45, buf.getShort());
+        assertEquals(45, buf.getShort());
+        // sizes and name length, then the length of the extra field
+        assertEquals(content.length, buf.getInt(24));
+        assertEquals(6, buf.getShort(28));
+        assertEquals(12, buf.getShort(30));
+        // the local header offset is deferred to the extra field
+        assertEquals(-1, buf.getInt(42));
+        buf.position(46 + 6);
+        assertEquals(0x0001, buf.getShort());
+        assertEquals(8, buf.getShort());
+        assertEquals(FOUR_GIB + 7, buf.getLong());
+    }
+
+    @Test
+    public void testZip64EntryCount() throws IOException {
+        final Path archive = dir.resolve("many.zip");
+        final int count = 0xffff + 1;
+        try (JZipFiler filer = new JZipFiler(Files.newOutputStream(archive))) {
+            for (int i = 0; i < count; i ++) {
+                try (OutputStream os = filer.openStream("", "E" + i)) {
+                    os.write(i);
+                }
+            }
+        }
+        // the count does not fit the end record, so it is only found through the ZIP64 record
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertEquals(count, zipFile.size());
+            assertEquals(0xfe, zipFile.getInputStream(zipFile.getEntry("E65534.java")).read());
+        }
+    }
+}